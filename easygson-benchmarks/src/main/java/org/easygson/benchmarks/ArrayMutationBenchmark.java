@@ -0,0 +1,91 @@
+package org.easygson.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonPrimitive;
+import org.easygson.JsonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overwriting and removing elements of an array nested in an object. Every invocation operates on a
+ * fresh copy of the array.
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArrayMutationBenchmark {
+
+    /** number of elements removed from the middle of the array per invocation */
+    private static final int REMOVALS = 10;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Documents.Size size;
+
+    private JsonArray numbers;
+
+    private JsonEntity json;
+
+    private JsonArray gson;
+
+    @Setup(Level.Trial)
+    public void createNumbers() {
+        numbers = Documents.numbers(size);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyNumbers() {
+        json = JsonEntity.emptyObject().create("numbers", numbers.deepCopy()).parent();
+        gson = numbers.deepCopy();
+    }
+
+    @Benchmark
+    public JsonEntity easyGsonOverwriteAll() {
+        JsonEntity array = json.get("numbers");
+        for (int index = 0; index < array.arraySize(); index++) {
+            array.create(index, index * 2);
+        }
+        return array;
+    }
+
+    @Benchmark
+    public JsonArray gsonOverwriteAll() {
+        for (int index = 0; index < gson.size(); index++) {
+            gson.set(index, new JsonPrimitive(index * 2));
+        }
+        return gson;
+    }
+
+    @Benchmark
+    public JsonEntity easyGsonRemoveFromMiddle() {
+        JsonEntity array = json.get("numbers");
+        for (int removal = 0; removal < REMOVALS && array.arraySize() > 0; removal++) {
+            array.remove(array.arraySize() / 2);
+        }
+        return array;
+    }
+
+    @Benchmark
+    public JsonArray gsonRemoveFromMiddle() {
+        for (int removal = 0; removal < REMOVALS && gson.size() > 0; removal++) {
+            gson.remove(gson.size() / 2);
+        }
+        return gson;
+    }
+
+}
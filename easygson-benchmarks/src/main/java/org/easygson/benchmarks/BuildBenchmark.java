@@ -0,0 +1,78 @@
+package org.easygson.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.easygson.JsonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.easygson.JsonEntity.emptyObject;
+
+/**
+ * Building a document from scratch with the fluent API
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Documents.Size size;
+
+    @Benchmark
+    public JsonEntity easyGson() {
+        JsonEntity records = emptyObject().createArray("records");
+        for (int index = 0; index < size.records(); index++) {
+            records.createObject()
+                    .create("id", index)
+                    .create("name", "Record " + index)
+                    .create("active", index % 2 == 0)
+                    .createArray("tags")
+                        .create("tag-" + (index % 7))
+                        .create("tag-" + (index % 11))
+                        .parent()
+                    .createObject("address")
+                        .create("street", "Street " + index)
+                        .create("city", "City " + (index % 100));
+        }
+        return records.parent();
+    }
+
+    @Benchmark
+    public JsonObject gson() {
+        JsonArray records = new JsonArray();
+        for (int index = 0; index < size.records(); index++) {
+            JsonObject record = new JsonObject();
+            record.addProperty("id", index);
+            record.addProperty("name", "Record " + index);
+            record.addProperty("active", index % 2 == 0);
+            JsonArray tags = new JsonArray();
+            tags.add("tag-" + (index % 7));
+            tags.add("tag-" + (index % 11));
+            record.add("tags", tags);
+            JsonObject address = new JsonObject();
+            address.addProperty("street", "Street " + index);
+            address.addProperty("city", "City " + (index % 100));
+            record.add("address", address);
+            records.add(record);
+        }
+        JsonObject document = new JsonObject();
+        document.add("records", records);
+        return document;
+    }
+
+}
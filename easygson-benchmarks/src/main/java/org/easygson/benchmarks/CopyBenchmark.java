@@ -0,0 +1,36 @@
+package org.easygson.benchmarks;
+
+import com.google.gson.JsonObject;
+import org.easygson.JsonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying the entire document
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyBenchmark {
+
+    @Benchmark
+    public JsonEntity easyGsonDetachedCopy(DocumentState state) {
+        return state.json.detachedCopy();
+    }
+
+    @Benchmark
+    public JsonObject gsonDeepCopy(DocumentState state) {
+        return state.gson.deepCopy();
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.easygson.benchmarks;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.easygson.JsonEntity;
+import org.easygson.JsonPath;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared state holding a generated document, both as text and as parsed trees
+ * @author Robert Bor
+ */
+@State(Scope.Benchmark)
+public class DocumentState {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Documents.Size size;
+
+    public String text;
+
+    /** the document as UTF-8 encoded bytes */
+    public byte[] bytes;
+
+    public JsonObject gson;
+
+    public JsonEntity json;
+
+    /** second, equal but not identical, version of the document */
+    public JsonEntity equalJson;
+
+    /** index of the record in the middle of the records array */
+    public int middle;
+
+    /** compiled path to the latitude of the record in the middle */
+    public JsonPath middleLatitude;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gson = Documents.document(size);
+        text = gson.toString();
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+        json = new JsonEntity(JsonParser.parseString(text));
+        equalJson = new JsonEntity(JsonParser.parseString(text));
+        middle = size.records() / 2;
+        middleLatitude = JsonPath.compile("$.records[" + middle + "].address.geo.lat");
+    }
+
+}
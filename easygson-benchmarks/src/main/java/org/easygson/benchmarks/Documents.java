@@ -0,0 +1,71 @@
+package org.easygson.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Generates the JSON documents the benchmarks operate on. A document is an object with a single
+ * "records" array; every record contains primitives, a nested array and a nested object.
+ * @author Robert Bor
+ */
+public class Documents {
+
+    /** Size of the generated documents, expressed in the number of records */
+    public enum Size {
+        SMALL(10),
+        MEDIUM(1000),
+        LARGE(50000);
+
+        private final int records;
+
+        Size(int records) {
+            this.records = records;
+        }
+
+        public int records() {
+            return records;
+        }
+    }
+
+    private Documents() {}
+
+    public static JsonObject document(Size size) {
+        JsonArray records = new JsonArray();
+        for (int index = 0; index < size.records(); index++) {
+            records.add(record(index));
+        }
+        JsonObject document = new JsonObject();
+        document.add("records", records);
+        return document;
+    }
+
+    public static JsonObject record(int index) {
+        JsonObject geo = new JsonObject();
+        geo.addProperty("lat", 52.0 + index / 1000.0);
+        geo.addProperty("lng", 5.0 + index / 1000.0);
+        JsonObject address = new JsonObject();
+        address.addProperty("street", "Street " + index);
+        address.addProperty("city", "City " + (index % 100));
+        address.add("geo", geo);
+        JsonArray tags = new JsonArray();
+        tags.add("tag-" + (index % 7));
+        tags.add("tag-" + (index % 11));
+        JsonObject record = new JsonObject();
+        record.addProperty("id", index);
+        record.addProperty("name", "Record " + index);
+        record.addProperty("active", index % 2 == 0);
+        record.addProperty("score", index * 1.5);
+        record.add("tags", tags);
+        record.add("address", address);
+        return record;
+    }
+
+    public static JsonArray numbers(Size size) {
+        JsonArray numbers = new JsonArray();
+        for (int index = 0; index < size.records(); index++) {
+            numbers.add(index);
+        }
+        return numbers;
+    }
+
+}
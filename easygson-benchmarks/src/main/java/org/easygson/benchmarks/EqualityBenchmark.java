@@ -0,0 +1,44 @@
+package org.easygson.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparing and hashing two equal, but not identical, documents
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EqualityBenchmark {
+
+    @Benchmark
+    public boolean easyGsonEquals(DocumentState state) {
+        return state.json.equals(state.equalJson);
+    }
+
+    @Benchmark
+    public int easyGsonHashCode(DocumentState state) {
+        return state.json.hashCode();
+    }
+
+    @Benchmark
+    public boolean gsonEquals(DocumentState state) {
+        return state.json.raw().equals(state.equalJson.raw());
+    }
+
+    @Benchmark
+    public int gsonHashCode(DocumentState state) {
+        return state.gson.hashCode();
+    }
+
+}
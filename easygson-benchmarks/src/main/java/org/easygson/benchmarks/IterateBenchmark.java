@@ -0,0 +1,53 @@
+package org.easygson.benchmarks;
+
+import com.google.gson.JsonElement;
+import org.easygson.JsonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterating over all the records and reading a primitive from each of them
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IterateBenchmark {
+
+    @Benchmark
+    public long easyGsonIterator(DocumentState state) {
+        long sum = 0;
+        for (JsonEntity record : state.json.get("records")) {
+            sum += record.asInt("id");
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long easyGsonCursor(DocumentState state) {
+        long sum = 0;
+        for (JsonEntity record : state.json.get("records").cursor()) {
+            sum += record.asInt("id");
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long gson(DocumentState state) {
+        long sum = 0;
+        for (JsonElement record : state.gson.getAsJsonArray("records")) {
+            sum += record.getAsJsonObject().get("id").getAsInt();
+        }
+        return sum;
+    }
+
+}
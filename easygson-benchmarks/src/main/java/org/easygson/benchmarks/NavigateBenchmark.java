@@ -0,0 +1,49 @@
+package org.easygson.benchmarks;
+
+import org.easygson.EntityScope;
+import org.easygson.JsonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deep navigation to a primitive in the middle of the document
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigateBenchmark {
+
+    @Benchmark
+    public double easyGson(DocumentState state) {
+        return state.json.get("records").get(state.middle).get("address").get("geo").asDouble("lat");
+    }
+
+    @Benchmark
+    public double easyGsonScoped(DocumentState state) {
+        try (EntityScope scope = JsonEntity.scope()) {
+            return state.json.get("records").get(state.middle).get("address").get("geo").asDouble("lat");
+        }
+    }
+
+    @Benchmark
+    public double easyGsonJsonPath(DocumentState state) {
+        return state.middleLatitude.readDouble(state.json);
+    }
+
+    @Benchmark
+    public double gson(DocumentState state) {
+        return state.gson.getAsJsonArray("records").get(state.middle).getAsJsonObject()
+                .getAsJsonObject("address").getAsJsonObject("geo").get("lat").getAsDouble();
+    }
+
+}
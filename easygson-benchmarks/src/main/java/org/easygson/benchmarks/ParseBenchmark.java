@@ -0,0 +1,37 @@
+package org.easygson.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.easygson.JsonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a JSON string representation
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Benchmark
+    public JsonEntity easyGson(DocumentState state) {
+        return new JsonEntity(state.text);
+    }
+
+    @Benchmark
+    public JsonElement gson(DocumentState state) {
+        return JsonParser.parseString(state.text);
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.easygson.benchmarks;
+
+import org.easygson.JsonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the entire document to its JSON string representation, also after parsing it and modifying
+ * a single field
+ * @author Robert Bor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializeBenchmark {
+
+    /** discards everything written to it, so only the serialization itself is measured */
+    private static final OutputStream NULL_OUTPUT = new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {}
+    };
+
+    @Benchmark
+    public String easyGsonToString(DocumentState state) {
+        return state.json.toString();
+    }
+
+    @Benchmark
+    public void easyGsonWriteTo(DocumentState state) throws IOException {
+        state.json.writeTo(NULL_OUTPUT);
+    }
+
+    @Benchmark
+    public String gsonToString(DocumentState state) {
+        return state.gson.toString();
+    }
+
+    @Benchmark
+    public void editOneFieldEasyGson(DocumentState state) throws IOException {
+        JsonEntity json = new JsonEntity(state.text);
+        json.get("records").get(state.middle).create("seen", true);
+        json.writeTo(NULL_OUTPUT);
+    }
+
+    @Benchmark
+    public void editOneFieldLazy(DocumentState state) throws IOException {
+        JsonEntity json = JsonEntity.parseLazy(state.bytes);
+        json.get("records").get(state.middle).create("seen", true);
+        json.writeTo(NULL_OUTPUT);
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.easygson;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer that passes all characters on to an Appendable, such as a StringBuilder
+ */
+class AppendableWriter extends Writer {
+
+    private final Appendable appendable;
+
+    AppendableWriter(Appendable appendable) {
+        this.appendable = appendable;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        appendable.append((char)c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        for (int position = offset; position < offset + length; position++) {
+            appendable.append(chars[position]);
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+        appendable.append(string, offset, offset + length);
+    }
+
+    @Override
+    public Writer append(CharSequence chars) throws IOException {
+        appendable.append(chars);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (appendable instanceof Flushable) {
+            ((Flushable)appendable).flush();
+        }
+    }
+
+    @Override
+    public void close() {}
+
+}
@@ -0,0 +1,241 @@
+package org.easygson;
+
+import com.google.gson.JsonElement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.easygson.WrappedElement.createPrimitiveBoolean;
+import static org.easygson.WrappedElement.createPrimitiveNumber;
+import static org.easygson.WrappedElement.createPrimitiveString;
+
+/**
+ * <p>Collects modifications of an array, which are applied together in a single pass once the batch is
+ * complete. All indexes refer to the positions in the array as it was before the batch, so they do not shift
+ * while the modifications are being collected:</p>
+ *
+ * <pre>
+ * array.batch(batch -&gt; batch
+ *         .remove(0)
+ *         .set(2, "changed")
+ *         .insert(2, "inserted before the original third element"));
+ * </pre>
+ *
+ * <p>If the same position is set or removed more than once, the last modification wins. Elements inserted
+ * at the same position appear in the order in which they were inserted. If the batch fails, the array is
+ * left untouched.</p>
+ */
+public class ArrayBatch {
+
+    /** the array to modify */
+    private final JsonEntity array;
+
+    /** size of the array before the batch */
+    private final int size;
+
+    /** new elements for the original positions, null for positions that keep their element */
+    private final WrappedElement[] replacements;
+
+    /** original positions of which the element is removed */
+    private final boolean[] removals;
+
+    /** elements to insert before the original positions, the size of the array meaning at the end */
+    private final Map<Integer, List<WrappedElement>> insertions = new HashMap<Integer, List<WrappedElement>>();
+
+    /** lowest original position that is affected by the batch */
+    private int firstChange;
+
+    ArrayBatch(JsonEntity array, int size) {
+        this.array = array;
+        this.size = size;
+        this.replacements = new WrappedElement[size];
+        this.removals = new boolean[size];
+        this.firstChange = size + 1;
+    }
+
+    /**
+     * Replaces the element at the original position
+     * @param index original position of the element
+     * @param value the element to replace it with
+     * @return the batch
+     */
+    public ArrayBatch set(int index, JsonEntity value) {
+        return set(index, WrapFactory.wrap(value.raw()));
+    }
+
+    /**
+     * Replaces the element at the original position
+     * @param index original position of the element
+     * @param value the element to replace it with
+     * @return the batch
+     */
+    public ArrayBatch set(int index, JsonElement value) {
+        return set(index, WrapFactory.wrap(value));
+    }
+
+    /**
+     * Replaces the element at the original position with a String value
+     * @param index original position of the element
+     * @param value the value to replace it with
+     * @return the batch
+     */
+    public ArrayBatch set(int index, String value) {
+        return set(index, createPrimitiveString(value));
+    }
+
+    /**
+     * Replaces the element at the original position with a Number value
+     * @param index original position of the element
+     * @param value the value to replace it with
+     * @return the batch
+     */
+    public ArrayBatch set(int index, Number value) {
+        return set(index, createPrimitiveNumber(value));
+    }
+
+    /**
+     * Replaces the element at the original position with a Boolean value
+     * @param index original position of the element
+     * @param value the value to replace it with
+     * @return the batch
+     */
+    public ArrayBatch set(int index, Boolean value) {
+        return set(index, createPrimitiveBoolean(value));
+    }
+
+    private ArrayBatch set(int index, WrappedElement element) {
+        checkExisting(index);
+        replacements[index] = element;
+        removals[index] = false;
+        return changed(index);
+    }
+
+    /**
+     * Removes the element at the original position
+     * @param index original position of the element
+     * @return the batch
+     */
+    public ArrayBatch remove(int index) {
+        checkExisting(index);
+        replacements[index] = null;
+        removals[index] = true;
+        return changed(index);
+    }
+
+    /**
+     * Inserts an element before the element at the original position. If the position is the size of the
+     * array, the element is appended.
+     * @param index original position to insert the element before
+     * @param value the element to insert
+     * @return the batch
+     */
+    public ArrayBatch insert(int index, JsonEntity value) {
+        return insert(index, WrapFactory.wrap(value.raw()));
+    }
+
+    /**
+     * Inserts an element before the element at the original position. If the position is the size of the
+     * array, the element is appended.
+     * @param index original position to insert the element before
+     * @param value the element to insert
+     * @return the batch
+     */
+    public ArrayBatch insert(int index, JsonElement value) {
+        return insert(index, WrapFactory.wrap(value));
+    }
+
+    /**
+     * Inserts a String value before the element at the original position
+     * @param index original position to insert the value before
+     * @param value the value to insert
+     * @return the batch
+     */
+    public ArrayBatch insert(int index, String value) {
+        return insert(index, createPrimitiveString(value));
+    }
+
+    /**
+     * Inserts a Number value before the element at the original position
+     * @param index original position to insert the value before
+     * @param value the value to insert
+     * @return the batch
+     */
+    public ArrayBatch insert(int index, Number value) {
+        return insert(index, createPrimitiveNumber(value));
+    }
+
+    /**
+     * Inserts a Boolean value before the element at the original position
+     * @param index original position to insert the value before
+     * @param value the value to insert
+     * @return the batch
+     */
+    public ArrayBatch insert(int index, Boolean value) {
+        return insert(index, createPrimitiveBoolean(value));
+    }
+
+    private ArrayBatch insert(int index, WrappedElement element) {
+        if (index < 0 || index > size) {
+            throw new JsonEntityException(array, null, "index out of bounds: index "+index+" > "+size+" length");
+        }
+        List<WrappedElement> elements = insertions.get(index);
+        if (elements == null) {
+            elements = new ArrayList<WrappedElement>();
+            insertions.put(index, elements);
+        }
+        elements.add(element);
+        return changed(index);
+    }
+
+    /**
+     * Appends an element to the end of the array
+     * @param value the element to append
+     * @return the batch
+     */
+    public ArrayBatch append(JsonEntity value) {
+        return insert(size, value);
+    }
+
+    private void checkExisting(int index) {
+        if (index < 0 || index >= size) {
+            throw new JsonEntityException(array, null, "index out of bounds: index "+index+" >= "+size+" length");
+        }
+    }
+
+    private ArrayBatch changed(int index) {
+        firstChange = Math.min(firstChange, index);
+        return this;
+    }
+
+    /**
+     * @return lowest original position affected by the batch, or a position beyond the end of the array if
+     * the batch is empty
+     */
+    int firstChange() {
+        return firstChange;
+    }
+
+    /**
+     * Determines the elements of the array from the first change onwards, as they will be after the batch
+     * @param original the array before the batch
+     * @return the elements from the first change onwards
+     * @throws WrappedElementException if the original is not an array
+     */
+    List<WrappedElement> apply(WrappedElement original) throws WrappedElementException {
+        List<WrappedElement> elements = new ArrayList<WrappedElement>(size - firstChange + insertions.size());
+        for (int index = firstChange; index <= size; index++) {
+            List<WrappedElement> inserted = insertions.get(index);
+            if (inserted != null) {
+                elements.addAll(inserted);
+            }
+            if (index == size || removals[index]) {
+                continue;
+            }
+            elements.add(replacements[index] != null ? replacements[index] : original.getAtIndex(index));
+        }
+        return elements;
+    }
+
+}
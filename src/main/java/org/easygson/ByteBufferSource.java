@@ -0,0 +1,42 @@
+package org.easygson;
+
+import java.nio.ByteBuffer;
+
+/**
+ * JsonSource over the remaining bytes of a ByteBuffer, which may live either on or off the heap. The bytes
+ * are not copied, so the buffer must not be modified as long as the source is in use. The position of the
+ * original buffer is left untouched.
+ */
+class ByteBufferSource implements JsonSource {
+
+    private final ByteBuffer buffer;
+
+    /** position of the first byte of the document within the buffer */
+    private final int base;
+
+    private final int length;
+
+    ByteBufferSource(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.base = buffer.position();
+        this.length = buffer.remaining();
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public byte byteAt(long offset) {
+        return buffer.get(base + (int)offset);
+    }
+
+    @Override
+    public void copy(long offset, byte[] target, int targetOffset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(base + (int)offset);
+        view.get(target, targetOffset, length);
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.easygson;
+
+import java.util.Arrays;
+
+/**
+ * Small cache of the child JsonEntity instances handed out by a JsonEntity, so that repeated navigation to
+ * the same child returns the same instance instead of wrapping it again. Children of objects are kept in an
+ * open-addressed hash table keyed by property name, children of arrays in a table indexed by position.
+ */
+class ChildCache {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] names;
+
+    private JsonEntity[] namedChildren;
+
+    private int namedSize;
+
+    private JsonEntity[] indexedChildren;
+
+    JsonEntity get(String name) {
+        if (names == null) {
+            return null;
+        }
+        int mask = names.length - 1;
+        for (int slot = slot(name, mask); names[slot] != null; slot = (slot + 1) & mask) {
+            if (names[slot].equals(name)) {
+                return namedChildren[slot];
+            }
+        }
+        return null;
+    }
+
+    void put(String name, JsonEntity child) {
+        if (names == null) {
+            names = new String[INITIAL_CAPACITY];
+            namedChildren = new JsonEntity[INITIAL_CAPACITY];
+        } else if ((namedSize + 1) * 4 > names.length * 3) {
+            resize(names.length * 2);
+        }
+        if (insert(names, namedChildren, name, child)) {
+            namedSize++;
+        }
+    }
+
+    JsonEntity get(int index) {
+        return indexedChildren != null && index < indexedChildren.length ? indexedChildren[index] : null;
+    }
+
+    void put(int index, JsonEntity child) {
+        if (indexedChildren == null) {
+            indexedChildren = new JsonEntity[Math.max(INITIAL_CAPACITY, index + 1)];
+        } else if (index >= indexedChildren.length) {
+            indexedChildren = Arrays.copyOf(indexedChildren, Math.max(indexedChildren.length * 2, index + 1));
+        }
+        indexedChildren[index] = child;
+    }
+
+    void clear() {
+        if (names != null && namedSize > 0) {
+            Arrays.fill(names, null);
+            Arrays.fill(namedChildren, null);
+            namedSize = 0;
+        }
+        if (indexedChildren != null) {
+            Arrays.fill(indexedChildren, null);
+        }
+    }
+
+    private void resize(int capacity) {
+        String[] oldNames = names;
+        JsonEntity[] oldChildren = namedChildren;
+        names = new String[capacity];
+        namedChildren = new JsonEntity[capacity];
+        for (int slot = 0; slot < oldNames.length; slot++) {
+            if (oldNames[slot] != null) {
+                insert(names, namedChildren, oldNames[slot], oldChildren[slot]);
+            }
+        }
+    }
+
+    /** @return true if the name was not yet present */
+    private static boolean insert(String[] names, JsonEntity[] children, String name, JsonEntity child) {
+        int mask = names.length - 1;
+        int slot = slot(name, mask);
+        while (names[slot] != null) {
+            if (names[slot].equals(name)) {
+                children[slot] = child;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        names[slot] = name;
+        children[slot] = child;
+        return true;
+    }
+
+    private static int slot(String name, int mask) {
+        int hash = name.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+}
@@ -0,0 +1,247 @@
+package org.easygson;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * <p>JSON object that can be shared between threads. Access takes place through callbacks, which are
+ * executed while holding the appropriate locks:</p>
+ * <ul>
+ *     <li>the properties of the object are divided over a number of stripes, each guarded by its own
+ *     read/write lock. Reading a property only takes the read lock of its stripe, so readers never block
+ *     each other. Modifying the subtree of a property takes the write lock of its stripe, so writers to
+ *     properties in different stripes do not contend.</li>
+ *     <li>adding or removing properties changes the object itself and takes an exclusive lock on the
+ *     whole object.</li>
+ * </ul>
+ * <p>For example:</p>
+ *
+ * <pre>
+ * ConcurrentJsonEntity session = ConcurrentJsonEntity.emptyObject();
+ * session.put("cart", JsonEntity.emptyArray());
+ * session.write("cart", cart -&gt; cart.create("apple"));
+ * int items = session.read("cart", cart -&gt; cart.arraySize());
+ * </pre>
+ *
+ * <p>The JsonEntity handed to a callback must not be retained or used outside of the callback, and only
+ * the subtree of the property may be modified through it.</p>
+ *
+ * <p>Read locks cannot be upgraded to write locks. Calling put(), remove() or writeAll() from within any
+ * callback other than that of writeAll(), or calling write() from within read() or readAll() for a property
+ * in the same stripe, would therefore deadlock; such calls are rejected with an IllegalStateException
+ * instead.</p>
+ */
+public class ConcurrentJsonEntity {
+
+    private static final int DEFAULT_STRIPES = 16;
+
+    /** the wrapped object, which is never exposed directly */
+    private final JsonEntity root;
+
+    /** guards the set of properties; read by property access, written when properties are added or removed */
+    private final ReentrantReadWriteLock rootLock = new ReentrantReadWriteLock();
+
+    private final ReentrantReadWriteLock[] stripes;
+
+    private ConcurrentJsonEntity(JsonEntity root, int stripes) {
+        if (!root.isObject()) {
+            throw new JsonEntityException(root, null, "is not an object, therefore it cannot be shared concurrently");
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.root = root;
+        this.stripes = new ReentrantReadWriteLock[size];
+        for (int stripe = 0; stripe < size; stripe++) {
+            this.stripes[stripe] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Creates a concurrent object from a copy of the JsonEntity, so modifying the JsonEntity afterwards does
+     * not affect the concurrent object
+     * @param json the object to copy
+     * @return the concurrent object
+     */
+    public static ConcurrentJsonEntity of(JsonEntity json) {
+        return of(json, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a concurrent object from a copy of the JsonEntity, with the properties divided over the given
+     * number of lock stripes
+     * @param json the object to copy
+     * @param stripes number of lock stripes, rounded up to a power of two
+     * @return the concurrent object
+     */
+    public static ConcurrentJsonEntity of(JsonEntity json, int stripes) {
+        return new ConcurrentJsonEntity(new JsonEntity(json.detachedCopy().raw()), stripes);
+    }
+
+    /**
+     * Provides a starting point, in this case an empty object
+     * @return an empty concurrent object
+     */
+    public static ConcurrentJsonEntity emptyObject() {
+        return new ConcurrentJsonEntity(JsonEntity.emptyObject(), DEFAULT_STRIPES);
+    }
+
+    /**
+     * Reads the subtree of a property. Other readers are not blocked.
+     * @param property name of the property
+     * @param reader callback receiving the subtree of the property, or null if the property does not exist
+     * @param <T> type of the value returned by the callback
+     * @return the value returned by the callback
+     */
+    public <T> T read(String property, Function<JsonEntity, T> reader) {
+        Lock lock = stripe(property).readLock();
+        rootLock.readLock().lock();
+        try {
+            lock.lock();
+            try {
+                return reader.apply(root.get(property));
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            rootLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Modifies the subtree of a property, which must be an array or an object. Readers and writers of
+     * properties in other stripes are not blocked.
+     * @param property name of the property
+     * @param writer callback receiving the subtree of the property
+     * @throws IllegalStateException if called from within read() or readAll() for a property in the same stripe
+     */
+    public void write(String property, JsonEntityHandler writer) {
+        ReentrantReadWriteLock stripe = stripe(property);
+        if (stripe.getReadHoldCount() > 0) {
+            throw new IllegalStateException("cannot write property "+property+
+                    " while reading it or a property in the same stripe");
+        }
+        Lock lock = stripe.writeLock();
+        rootLock.readLock().lock();
+        try {
+            lock.lock();
+            try {
+                JsonEntity subtree = root.get(property);
+                if (subtree == null || !(subtree.isArray() || subtree.isObject())) {
+                    throw new JsonEntityException(root, null, "property "+property+
+                            " is not an array or object, therefore it cannot be modified in place");
+                }
+                writer.handle(subtree);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            rootLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a copy of the JsonEntity under the property. If something already exists under that property,
+     * it will be overwritten. All other access waits until the property has been stored.
+     * @param property name of the property
+     * @param json the JsonEntity to store
+     * @return the concurrent object
+     * @throws IllegalStateException if called from within a callback other than that of writeAll()
+     */
+    public ConcurrentJsonEntity put(String property, JsonEntity json) {
+        JsonEntity copy = json.detachedCopy();
+        lockRoot();
+        try {
+            root.create(property, copy.raw());
+        } finally {
+            rootLock.writeLock().unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Removes the property. All other access waits until the property has been removed.
+     * @param property name of the property
+     * @return the concurrent object
+     * @throws IllegalStateException if called from within a callback other than that of writeAll()
+     */
+    public ConcurrentJsonEntity remove(String property) {
+        lockRoot();
+        try {
+            root.remove(property);
+        } finally {
+            rootLock.writeLock().unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Reads the entire object. Other readers are not blocked, but writers wait until the callback returns.
+     * @param reader callback receiving the entire object
+     * @param <T> type of the value returned by the callback
+     * @return the value returned by the callback
+     */
+    public <T> T readAll(Function<JsonEntity, T> reader) {
+        rootLock.readLock().lock();
+        try {
+            for (ReentrantReadWriteLock stripe : stripes) {
+                stripe.readLock().lock();
+            }
+            try {
+                return reader.apply(root);
+            } finally {
+                for (ReentrantReadWriteLock stripe : stripes) {
+                    stripe.readLock().unlock();
+                }
+            }
+        } finally {
+            rootLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Modifies the entire object. All other access waits until the callback returns.
+     * @param writer callback receiving the entire object
+     * @throws IllegalStateException if called from within a callback other than that of writeAll()
+     */
+    public void writeAll(JsonEntityHandler writer) {
+        lockRoot();
+        try {
+            writer.handle(root);
+        } finally {
+            rootLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes a consistent snapshot of the entire object
+     * @return copy of the object, which can be used without locking
+     */
+    public JsonEntity snapshot() {
+        return readAll(JsonEntity::detachedCopy);
+    }
+
+    /**
+     * Takes the exclusive lock on the whole object. A thread that holds the read lock would wait for itself,
+     * so this is refused while the thread is inside a callback that holds it.
+     */
+    private void lockRoot() {
+        if (rootLock.getReadHoldCount() > 0) {
+            throw new IllegalStateException("cannot add, remove or modify all properties from within a read or write callback");
+        }
+        rootLock.writeLock().lock();
+    }
+
+    private ReentrantReadWriteLock stripe(String property) {
+        int hash = property.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return readAll(JsonEntity::toString);
+    }
+
+}
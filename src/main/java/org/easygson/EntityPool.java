@@ -0,0 +1,182 @@
+package org.easygson;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Arrays;
+
+import static org.easygson.WrappedNull.NULL;
+
+/**
+ * Per-thread pool of the JsonEntity and WrappedElement instances handed out while an EntityScope is open.
+ * Instances are taken from the pool in order and are all given back at once when the scope closes, by
+ * resetting the number of instances in use to what it was when the scope was opened.
+ */
+class EntityPool {
+
+    /** no more instances of a kind are kept; beyond this, instances are allocated as usual */
+    private static final int MAX_POOLED = 1 << 16;
+
+    private static final ThreadLocal<EntityPool> POOLS = new ThreadLocal<EntityPool>();
+
+    /** true once a scope has been opened on any thread, so that threads that never do skip the lookup */
+    private static volatile boolean used;
+
+    private JsonEntity[] entities = new JsonEntity[16];
+
+    private WrappedObject[] objects = new WrappedObject[16];
+
+    private WrappedArray[] arrays = new WrappedArray[16];
+
+    private WrappedPrimitive[] primitives = new WrappedPrimitive[16];
+
+    int entityCount;
+
+    int objectCount;
+
+    int arrayCount;
+
+    int primitiveCount;
+
+    /** number of scopes open on the thread */
+    int depth;
+
+    /**
+     * @return the pool of the current thread if a scope is open on it, otherwise null
+     */
+    static EntityPool current() {
+        if (!used) {
+            return null;
+        }
+        EntityPool pool = POOLS.get();
+        return pool != null && pool.depth > 0 ? pool : null;
+    }
+
+    /**
+     * @return the pool of the current thread, which is created if it does not exist yet
+     */
+    static EntityPool open() {
+        used = true;
+        EntityPool pool = POOLS.get();
+        if (pool == null) {
+            pool = new EntityPool();
+            POOLS.set(pool);
+        }
+        return pool;
+    }
+
+    JsonEntity entity(JsonEntity parent, String propertyName, int propertyIndex, WrappedElement wrappedElement) {
+        if (entityCount == MAX_POOLED) {
+            return new JsonEntity(parent, propertyName, propertyIndex, wrappedElement);
+        }
+        if (entityCount == entities.length) {
+            entities = Arrays.copyOf(entities, entities.length * 2);
+        }
+        JsonEntity entity = entities[entityCount];
+        if (entity == null) {
+            entity = new JsonEntity(parent, propertyName, propertyIndex, wrappedElement);
+            entities[entityCount] = entity;
+        } else {
+            entity.reposition(parent, propertyName, propertyIndex, wrappedElement);
+        }
+        entityCount++;
+        return entity;
+    }
+
+    /**
+     * Wraps the Gson element in a pooled wrapper. Null values are wrapped as the shared null element.
+     */
+    WrappedElement wrap(JsonElement json) {
+        if (json == null || json.isJsonNull()) {
+            return NULL;
+        }
+        if (json.isJsonArray()) {
+            return array((JsonArray)json);
+        }
+        if (json.isJsonPrimitive()) {
+            return primitive((JsonPrimitive)json);
+        }
+        return object((JsonObject)json);
+    }
+
+    private WrappedElement object(JsonObject json) {
+        if (objectCount == MAX_POOLED) {
+            return new WrappedObject(json);
+        }
+        if (objectCount == objects.length) {
+            objects = Arrays.copyOf(objects, objects.length * 2);
+        }
+        WrappedObject object = objects[objectCount];
+        if (object == null) {
+            object = new WrappedObject(json);
+            objects[objectCount] = object;
+        }
+        object.json = json;
+        objectCount++;
+        return object;
+    }
+
+    private WrappedElement array(JsonArray json) {
+        if (arrayCount == MAX_POOLED) {
+            return new WrappedArray(json);
+        }
+        if (arrayCount == arrays.length) {
+            arrays = Arrays.copyOf(arrays, arrays.length * 2);
+        }
+        WrappedArray array = arrays[arrayCount];
+        if (array == null) {
+            array = new WrappedArray(json);
+            arrays[arrayCount] = array;
+        }
+        array.json = json;
+        arrayCount++;
+        return array;
+    }
+
+    private WrappedElement primitive(JsonPrimitive json) {
+        WrappedPrimitive shared = WrappedPrimitive.shared(json);
+        if (shared != null) {
+            return shared;
+        }
+        if (primitiveCount == MAX_POOLED) {
+            return new WrappedPrimitive(json);
+        }
+        if (primitiveCount == primitives.length) {
+            primitives = Arrays.copyOf(primitives, primitives.length * 2);
+        }
+        WrappedPrimitive primitive = primitives[primitiveCount];
+        if (primitive == null) {
+            primitive = new WrappedPrimitive(json);
+            primitives[primitiveCount] = primitive;
+        }
+        primitive.json = json;
+        primitiveCount++;
+        return primitive;
+    }
+
+    /**
+     * Gives back the instances handed out since the counts were recorded. Their references are cleared, so
+     * the pool does not keep the JSON trees they were wrapping alive.
+     */
+    void release(int entityMark, int objectMark, int arrayMark, int primitiveMark) {
+        for (int index = entityMark; index < entityCount; index++) {
+            entities[index].reposition(null, null, -1, NULL);
+        }
+        for (int index = objectMark; index < objectCount; index++) {
+            objects[index].json = null;
+        }
+        for (int index = arrayMark; index < arrayCount; index++) {
+            arrays[index].json = null;
+        }
+        for (int index = primitiveMark; index < primitiveCount; index++) {
+            primitives[index].json = null;
+        }
+        entityCount = entityMark;
+        objectCount = objectMark;
+        arrayCount = arrayMark;
+        primitiveCount = primitiveMark;
+    }
+
+}
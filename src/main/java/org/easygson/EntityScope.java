@@ -0,0 +1,68 @@
+package org.easygson;
+
+/**
+ * <p>Scope within which the JsonEntity instances handed out while navigating are taken from a pool of the
+ * current thread, instead of being allocated. When the scope closes, all instances handed out within it are
+ * returned to the pool, to be reused by the next scope on the same thread:</p>
+ *
+ * <pre>
+ * try (EntityScope scope = JsonEntity.scope()) {
+ *     String name = json.get("user").get("name").asString();
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>The JsonEntity instances obtained within the scope must not be used or retained after the scope has
+ * closed; copy whatever is needed with detachedCopy() or raw() first. Children of a JsonEntity that caches
+ * its children are never pooled. Scopes may be nested, but must be closed in reverse order and on the thread
+ * that opened them.</p>
+ *
+ * <p>The pool is never shrunk: every thread that has opened a scope keeps up to 65 536 emptied instances of
+ * each kind (JsonEntity and the wrappers of objects, arrays and primitives) for as long as the thread lives.
+ * Scopes are therefore best used on long-lived threads, such as those of a request pool.</p>
+ */
+public class EntityScope implements AutoCloseable {
+
+    private final EntityPool pool;
+
+    /** depth of this scope within the scopes open on the thread */
+    private final int depth;
+
+    private final int entityMark;
+
+    private final int objectMark;
+
+    private final int arrayMark;
+
+    private final int primitiveMark;
+
+    private boolean closed;
+
+    EntityScope() {
+        this.pool = EntityPool.open();
+        this.entityMark = pool.entityCount;
+        this.objectMark = pool.objectCount;
+        this.arrayMark = pool.arrayCount;
+        this.primitiveMark = pool.primitiveCount;
+        this.depth = ++pool.depth;
+    }
+
+    /**
+     * Returns all instances handed out within the scope to the pool. Closing a scope more than once has no
+     * effect.
+     * @throws IllegalStateException if a scope opened within this scope is still open
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (pool.depth != depth) {
+            throw new IllegalStateException("a nested scope is still open, scopes must be closed in reverse order");
+        }
+        pool.release(entityMark, objectMark, arrayMark, primitiveMark);
+        pool.depth--;
+        closed = true;
+    }
+
+}
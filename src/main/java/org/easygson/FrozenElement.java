@@ -0,0 +1,307 @@
+package org.easygson;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleConsumer;
+
+import static org.easygson.WrappedNull.NULL;
+
+/**
+ * <p>Immutable array or object, copied from another element. The structural hash of every array and object is
+ * computed once, bottom-up, while the copy is made, so hashCode() does not walk the tree. Two frozen elements
+ * with different hashes are known to differ without comparing their contents.</p>
+ *
+ * <p>All state is held in final fields and is never modified after construction, which makes a frozen
+ * element safe to share between threads without locking. Any attempt to modify the element results in an
+ * exception.</p>
+ */
+class FrozenElement extends WrappedElement<JsonElement> {
+
+    /** elements of an array, null if this is an object */
+    private final WrappedElement[] elements;
+
+    /** properties of an object, null if this is an array */
+    private final Map<String, WrappedElement> properties;
+
+    /** the structural hash, equal to the hashCode() of the corresponding Gson tree */
+    private final int hash;
+
+    private FrozenElement(WrappedElement array, int size) throws WrappedElementException {
+        super(null);
+        WrappedElement[] elements = new WrappedElement[size];
+        int hash = 1;
+        for (int index = 0; index < elements.length; index++) {
+            elements[index] = freeze(array.getAtIndex(index));
+            hash = 31 * hash + elements[index].structuralHash();
+        }
+        this.elements = elements;
+        this.properties = null;
+        this.hash = hash;
+    }
+
+    private FrozenElement(WrappedElement<?> object) throws WrappedElementException {
+        super(null);
+        Map<String, WrappedElement> properties = new LinkedHashMap<String, WrappedElement>();
+        int hash = 0;
+        for (String name : object.propertyNames()) {
+            WrappedElement value = freeze(object.get(name));
+            properties.put(name, value);
+            hash += name.hashCode() ^ value.structuralHash();
+        }
+        this.elements = null;
+        this.properties = properties;
+        this.hash = hash;
+    }
+
+    /**
+     * Makes an immutable copy of the element, reading it through its WrappedElement methods only, so that
+     * lazy and tape-backed elements are copied without building a Gson tree first. Primitives are immutable
+     * already and are wrapped as they are, or replaced by their shared instance. Null values are wrapped as
+     * the shared null element.
+     * @param element the element to copy
+     * @return the immutable copy
+     * @throws WrappedElementException if the element cannot be read
+     */
+    static WrappedElement freeze(WrappedElement element) throws WrappedElementException {
+        if (element == null || element.isNull()) {
+            return NULL;
+        } else if (element instanceof FrozenElement) {
+            return element;
+        } else if (element.isArray()) {
+            return new FrozenElement(element, element.arraySize());
+        } else if (element.isObject()) {
+            return new FrozenElement(element);
+        }
+        return WrappedPrimitive.valueOf(element.raw().getAsJsonPrimitive());
+    }
+
+    @Override
+    public boolean isArray() {
+        return elements != null;
+    }
+
+    @Override
+    public boolean isObject() {
+        return properties != null;
+    }
+
+    @Override
+    public boolean fluentPlayer() {
+        return true;
+    }
+
+    @Override
+    public int arraySize() throws WrappedElementException {
+        if (!isArray()) {
+            return super.arraySize();
+        }
+        return elements.length;
+    }
+
+    @Override
+    public WrappedElement getAtIndex(int index) throws WrappedElementException {
+        if (!isArray()) {
+            return super.getAtIndex(index);
+        }
+        if (index < 0 || index >= elements.length) {
+            throw new WrappedElementException("array element does not exist");
+        }
+        return elements[index];
+    }
+
+    @Override
+    public WrappedElement get(String property) throws WrappedElementException {
+        if (!isObject()) {
+            return super.get(property);
+        }
+        return properties.get(property);
+    }
+
+    @Override
+    public Set<String> propertyNames() throws WrappedElementException {
+        if (!isObject()) {
+            return super.propertyNames();
+        }
+        return new LinkedHashSet<String>(properties.keySet());
+    }
+
+    @Override
+    public void remove(String property) throws WrappedElementException {
+        throw frozen();
+    }
+
+    @Override
+    public WrappedElement rebuildArray(int replaceIndex, WrappedElement replaceElement) throws WrappedElementException {
+        throw frozen();
+    }
+
+    @Override
+    public void linkToObject(String property, WrappedElement jsonEntity) throws WrappedElementException {
+        throw frozen();
+    }
+
+    @Override
+    public void linkToArray(int index, WrappedElement jsonEntity) throws WrappedElementException {
+        throw frozen();
+    }
+
+    private WrappedElementException frozen() {
+        return new WrappedElementException("is frozen, therefore it cannot be modified");
+    }
+
+    @Override
+    public double[] toDoubleArray() throws WrappedElementException {
+        double[] values = new double[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asDouble();
+        }
+        return values;
+    }
+
+    @Override
+    public int[] toIntArray() throws WrappedElementException {
+        int[] values = new int[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asInt();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] toLongArray() throws WrappedElementException {
+        long[] values = new long[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asLong();
+        }
+        return values;
+    }
+
+    @Override
+    public String[] toStringArray() throws WrappedElementException {
+        String[] values = new String[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asString();
+        }
+        return values;
+    }
+
+    @Override
+    public void forEachDouble(DoubleConsumer consumer) throws WrappedElementException {
+        int size = arraySize();
+        for (int index = 0; index < size; index++) {
+            consumer.accept(primitiveAt(index).asDouble());
+        }
+    }
+
+    private WrappedElement primitiveAt(int index) throws WrappedElementException {
+        WrappedElement element = elements[index];
+        if (!element.isPrimitive()) {
+            throw new WrappedElementException("element at index "+index+" is not a primitive");
+        }
+        return element;
+    }
+
+    /**
+     * Builds a new, modifiable Gson tree every time, so the frozen element itself can never be modified
+     * through it
+     * @return the modifiable copy
+     */
+    @Override
+    public JsonElement raw() {
+        if (isArray()) {
+            JsonArray array = new JsonArray(elements.length);
+            for (WrappedElement element : elements) {
+                array.add(element.raw());
+            }
+            return array;
+        }
+        JsonObject object = new JsonObject();
+        for (Map.Entry<String, WrappedElement> property : properties.entrySet()) {
+            object.add(property.getKey(), property.getValue().raw());
+        }
+        return object;
+    }
+
+    @Override
+    public WrappedElement deepCopy() {
+        return WrapFactory.wrap(raw());
+    }
+
+    @Override
+    public int structuralHash() {
+        return hash;
+    }
+
+    /**
+     * Compares the contents with another element. Frozen elements are first compared by their hash, so
+     * their contents are only compared if the hashes are the same.
+     * @param other the element to compare with
+     * @return true if both represent the same JSON
+     */
+    @Override
+    public boolean structurallyEquals(WrappedElement other) {
+        if (other == this) {
+            return true;
+        }
+        if (!(other instanceof FrozenElement)) {
+            return super.structurallyEquals(other);
+        }
+        FrozenElement frozen = (FrozenElement)other;
+        if (hash != frozen.hash || isArray() != frozen.isArray()) {
+            return false;
+        }
+        if (isArray()) {
+            if (elements.length != frozen.elements.length) {
+                return false;
+            }
+            for (int index = 0; index < elements.length; index++) {
+                if (!elements[index].structurallyEquals(frozen.elements[index])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (properties.size() != frozen.properties.size()) {
+            return false;
+        }
+        for (Map.Entry<String, WrappedElement> property : properties.entrySet()) {
+            WrappedElement value = frozen.properties.get(property.getKey());
+            if (value == null || !property.getValue().structurallyEquals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toJson() {
+        return JsonElementWriter.toJson(this);
+    }
+
+    @Override
+    public void write(JsonWriter writer) throws IOException {
+        if (isArray()) {
+            writer.beginArray();
+            for (WrappedElement element : elements) {
+                element.write(writer);
+            }
+            writer.endArray();
+            return;
+        }
+        writer.beginObject();
+        for (Map.Entry<String, WrappedElement> property : properties.entrySet()) {
+            writer.name(property.getKey());
+            property.getValue().write(writer);
+        }
+        writer.endObject();
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.easygson;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Modifiable array of which the elements are elements in their own right, rather than a Gson tree. This
+ * allows a lazily parsed array to be modified while its untouched elements remain backed by the original
+ * document, so that they can still be written verbatim.
+ */
+class HybridArray extends WrappedElement<JsonElement> {
+
+    private final List<WrappedElement> elements;
+
+    HybridArray(ArrayList<WrappedElement> elements) {
+        super(null);
+        this.elements = elements;
+    }
+
+    @Override
+    public boolean isArray() {
+        return true;
+    }
+
+    @Override
+    public boolean fluentPlayer() {
+        return true;
+    }
+
+    /** the elements may be lazily parsed elements, which are not safe to read concurrently */
+    @Override
+    public boolean concurrentReads() {
+        return false;
+    }
+
+    @Override
+    public int arraySize() throws WrappedElementException {
+        return elements.size();
+    }
+
+    @Override
+    public WrappedElement getAtIndex(int index) throws WrappedElementException {
+        if (index < 0 || index >= elements.size()) {
+            throw new WrappedElementException("array element does not exist");
+        }
+        return elements.get(index);
+    }
+
+    @Override
+    public HybridArray rebuildArray(int replaceIndex, WrappedElement replaceElement) {
+        if (replaceElement == null) {
+            elements.remove(replaceIndex);
+        } else {
+            elements.set(replaceIndex, replaceElement);
+        }
+        return this;
+    }
+
+    @Override
+    public void linkToArray(int index, WrappedElement jsonEntity) throws WrappedElementException {
+        elements.add(jsonEntity);
+    }
+
+    @Override
+    public double[] toDoubleArray() throws WrappedElementException {
+        double[] values = new double[elements.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asDouble();
+        }
+        return values;
+    }
+
+    @Override
+    public int[] toIntArray() throws WrappedElementException {
+        int[] values = new int[elements.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asInt();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] toLongArray() throws WrappedElementException {
+        long[] values = new long[elements.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asLong();
+        }
+        return values;
+    }
+
+    @Override
+    public String[] toStringArray() throws WrappedElementException {
+        String[] values = new String[elements.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asString();
+        }
+        return values;
+    }
+
+    @Override
+    public void forEachDouble(DoubleConsumer consumer) throws WrappedElementException {
+        for (int index = 0; index < elements.size(); index++) {
+            consumer.accept(primitiveAt(index).asDouble());
+        }
+    }
+
+    private WrappedElement primitiveAt(int index) throws WrappedElementException {
+        WrappedElement element = elements.get(index);
+        if (!element.isPrimitive()) {
+            throw new WrappedElementException("element at index "+index+" is not a primitive");
+        }
+        return element;
+    }
+
+    /**
+     * Builds a Gson array that links the Gson trees of the elements
+     * @return the Gson array
+     */
+    @Override
+    public JsonElement raw() {
+        JsonArray array = new JsonArray(elements.size());
+        for (WrappedElement element : elements) {
+            array.add(element.raw());
+        }
+        return array;
+    }
+
+    @Override
+    public WrappedElement deepCopy() {
+        JsonArray array = new JsonArray(elements.size());
+        for (WrappedElement element : elements) {
+            array.add(element.deepCopy().raw());
+        }
+        return WrapFactory.wrap(array);
+    }
+
+    @Override
+    public void write(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (WrappedElement element : elements) {
+            element.write(writer);
+        }
+        writer.endArray();
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.easygson;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modifiable object of which the properties are elements in their own right, rather than a Gson tree. This
+ * allows a lazily parsed object to be modified while its untouched properties remain backed by the original
+ * document, so that they can still be written verbatim.
+ */
+class HybridObject extends WrappedElement<JsonElement> {
+
+    private final Map<String, WrappedElement> properties;
+
+    HybridObject(LinkedHashMap<String, WrappedElement> properties) {
+        super(null);
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean isObject() {
+        return true;
+    }
+
+    @Override
+    public boolean fluentPlayer() {
+        return true;
+    }
+
+    /** the properties may be lazily parsed elements, which are not safe to read concurrently */
+    @Override
+    public boolean concurrentReads() {
+        return false;
+    }
+
+    @Override
+    public WrappedElement get(String property) throws WrappedElementException {
+        return properties.get(property);
+    }
+
+    @Override
+    public void remove(String property) throws WrappedElementException {
+        properties.remove(property);
+    }
+
+    @Override
+    public void linkToObject(String property, WrappedElement jsonEntity) throws WrappedElementException {
+        properties.put(property, jsonEntity);
+    }
+
+    @Override
+    public Set<String> propertyNames() throws WrappedElementException {
+        return new LinkedHashSet<String>(properties.keySet());
+    }
+
+    /**
+     * Builds a Gson object that links the Gson trees of the properties
+     * @return the Gson object
+     */
+    @Override
+    public JsonElement raw() {
+        JsonObject object = new JsonObject();
+        for (Map.Entry<String, WrappedElement> property : properties.entrySet()) {
+            object.add(property.getKey(), property.getValue().raw());
+        }
+        return object;
+    }
+
+    @Override
+    public WrappedElement deepCopy() {
+        JsonObject object = new JsonObject();
+        for (Map.Entry<String, WrappedElement> property : properties.entrySet()) {
+            object.add(property.getKey(), property.getValue().deepCopy().raw());
+        }
+        return WrapFactory.wrap(object);
+    }
+
+    @Override
+    public void write(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, WrappedElement> property : properties.entrySet()) {
+            writer.name(property.getKey());
+            property.getValue().write(writer);
+        }
+        writer.endObject();
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.easygson;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+/**
+ * Writes a Gson JsonElement tree to a JsonWriter, node by node, so that the JSON string representation
+ * never has to be held in memory as a whole
+ */
+class JsonElementWriter {
+
+    private JsonElementWriter() {}
+
+    /**
+     * Writes the element through its own write() to a compact, lenient JsonWriter, the same way
+     * JsonElement.toString() does for Gson trees
+     * @param element the element to write
+     * @return the compact JSON string representation
+     */
+    static String toJson(WrappedElement<?> element) {
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.setLenient(true);
+        try {
+            element.write(writer);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringWriter does not throw
+        }
+        return stringWriter.toString();
+    }
+
+    static void write(JsonElement json, JsonWriter writer) throws IOException {
+        if (json == null || json.isJsonNull()) {
+            writer.nullValue();
+        } else if (json.isJsonPrimitive()) {
+            JsonPrimitive primitive = json.getAsJsonPrimitive();
+            if (primitive.isNumber()) {
+                writer.value(primitive.getAsNumber());
+            } else if (primitive.isBoolean()) {
+                writer.value(primitive.getAsBoolean());
+            } else {
+                writer.value(primitive.getAsString());
+            }
+        } else if (json.isJsonArray()) {
+            writer.beginArray();
+            for (JsonElement element : json.getAsJsonArray()) {
+                write(element, writer);
+            }
+            writer.endArray();
+        } else {
+            writer.beginObject();
+            for (Map.Entry<String, JsonElement> property : json.getAsJsonObject().entrySet()) {
+                writer.name(property.getKey());
+                write(property.getValue(), writer);
+            }
+            writer.endObject();
+        }
+    }
+
+}
@@ -1,13 +1,41 @@
 package org.easygson;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.easygson.WrappedNull.NULL;
 
@@ -40,11 +68,15 @@ import static org.easygson.WrappedNull.NULL;
 @SuppressWarnings("UnusedDeclaration")
 public class JsonEntity implements Iterable<JsonEntity> {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
     /** the JSON element that qualifies as the parent of this element. Must be either an array or an object */
     private JsonEntity parent;
 
     /** the wrapped Gson element */
-    private WrappedElement wrappedElement;
+    private WrappedElement<?> wrappedElement;
 
     /** the name/index of the current element within the parent */
     private String propertyName;
@@ -52,12 +84,15 @@ public class JsonEntity implements Iterable<JsonEntity> {
     /** the index of the current element within the parent */
     private int propertyIndex = -1;
 
+    /** cache of the children handed out by this element, null if child caching has not been enabled */
+    private ChildCache childCache;
+
     /**
      * Constructor that takes a JSON string representation and transforms it into a JsonEntity
      * @param jsonString JSON string representation
      */
     public JsonEntity(String jsonString) {
-        this(new JsonParser().parse(jsonString));
+        this(JsonParser.parseString(jsonString));
     }
 
     /**
@@ -72,11 +107,26 @@ public class JsonEntity implements Iterable<JsonEntity> {
         this(null, null, -1, wrappedElement);
     }
 
-    private JsonEntity(JsonEntity parent, String propertyName, int propertyIndex, WrappedElement wrappedElement) {
+    JsonEntity(JsonEntity parent, String propertyName, int propertyIndex, WrappedElement wrappedElement) {
+        reposition(parent, propertyName, propertyIndex, wrappedElement);
+    }
+
+    /**
+     * @return the element underneath, for navigating it without creating JsonEntity instances
+     */
+    WrappedElement<?> wrappedElement() {
+        return wrappedElement;
+    }
+
+    /**
+     * Points a pooled JsonEntity to another element
+     */
+    void reposition(JsonEntity parent, String propertyName, int propertyIndex, WrappedElement wrappedElement) {
         this.parent = parent;
         this.wrappedElement = wrappedElement == null ? NULL : wrappedElement;
         this.propertyName = propertyName;
         this.propertyIndex = propertyIndex;
+        this.childCache = null;
     }
 
     /**
@@ -108,6 +158,66 @@ public class JsonEntity implements Iterable<JsonEntity> {
         return create(index, WrappedElement.createArray());
     }
 
+    /**
+     * Creates an array of numbers within an object. The array will be stored under the property name. If
+     * something already exists under that property, it will be overwritten with this new one.
+     * @param property name of the property to create the array under
+     * @param values the numbers to fill the array with
+     * @return the newly created array
+     */
+    public JsonEntity createArray(String property, double[] values) {
+        return create(property, WrappedElement.createArray(values));
+    }
+
+    /**
+     * Creates an array of numbers within an object. The array will be stored under the property name. If
+     * something already exists under that property, it will be overwritten with this new one.
+     * @param property name of the property to create the array under
+     * @param values the numbers to fill the array with
+     * @return the newly created array
+     */
+    public JsonEntity createArray(String property, int[] values) {
+        return create(property, WrappedElement.createArray(values));
+    }
+
+    /**
+     * Creates an array of numbers within an object. The array will be stored under the property name. If
+     * something already exists under that property, it will be overwritten with this new one.
+     * @param property name of the property to create the array under
+     * @param values the numbers to fill the array with
+     * @return the newly created array
+     */
+    public JsonEntity createArray(String property, long[] values) {
+        return create(property, WrappedElement.createArray(values));
+    }
+
+    /**
+     * Creates an array of numbers within an array and adds it as the last element.
+     * @param values the numbers to fill the array with
+     * @return the newly created array
+     */
+    public JsonEntity createArray(double[] values) {
+        return create(arraySize(), WrappedElement.createArray(values));
+    }
+
+    /**
+     * Creates an array of numbers within an array and adds it as the last element.
+     * @param values the numbers to fill the array with
+     * @return the newly created array
+     */
+    public JsonEntity createArray(int[] values) {
+        return create(arraySize(), WrappedElement.createArray(values));
+    }
+
+    /**
+     * Creates an array of numbers within an array and adds it as the last element.
+     * @param values the numbers to fill the array with
+     * @return the newly created array
+     */
+    public JsonEntity createArray(long[] values) {
+        return create(arraySize(), WrappedElement.createArray(values));
+    }
+
     private JsonEntity createArray(JsonEntity parentData) {
         if (parentData.isIndexBased()) {
             return createArray(parentData.propertyIndex);
@@ -438,13 +548,14 @@ public class JsonEntity implements Iterable<JsonEntity> {
         } catch (WrappedElementException e) {
             throw new JsonEntityException(this, null, e.getMessage());
         }
+        clearChildCache();
         return this;
     }
 
     /**
      * Removes the element at index from the array. The array will be collapsed, ie elements following the removed
-     * element will get an index at 1 lower. Note that array collapsing is not supported by Gson and therefore an
-     * expensive array rebuild will be executed.
+     * element will get an index at 1 lower. The array is modified in place, so only the elements following the
+     * removed element have to be shifted.
      * @param index position of the element within the array to remove
      * @return the array element from which the element has been removed
      */
@@ -490,8 +601,6 @@ public class JsonEntity implements Iterable<JsonEntity> {
             throw new JsonEntityException(this, null, "index > array size");
         } else if (index < arraySize()) {
             if (overwrite) {
-                // This is an expensive operation, not supported by Gson. It constructs the array from scratch in order
-                // to overwrite a single value.
                 return rebuildArray(index, jsonElement);
             } else {
                 return getAtIndex(index);
@@ -505,25 +614,51 @@ public class JsonEntity implements Iterable<JsonEntity> {
         if (index >= arraySize()) {
             throw new JsonEntityException(this, null, "index out of bounds: index "+index+" >= "+arraySize()+" length");
         }
+        if (childCache != null) {
+            JsonEntity cachedChild = childCache.get(index);
+            if (cachedChild != null) {
+                return cachedChild;
+            }
+        }
+        EntityPool pool = pool();
+        if (pool != null && wrappedElement instanceof WrappedArray) {
+            return pool.entity(this, null, index, pool.wrap(((JsonArray)wrappedElement.raw()).get(index)));
+        }
         WrappedElement arrayElement = null;
         try {
             arrayElement = wrappedElement.getAtIndex(index);
         } catch (WrappedElementException e) {
             throw new JsonEntityException(this, null, e.getMessage());
         }
-        return wrap(index, arrayElement);
+        JsonEntity child = wrap(index, arrayElement);
+        if (childCache != null) {
+            childCache.put(index, child);
+        }
+        return child;
     }
 
     private JsonEntity rebuildArray(int replaceIndex, WrappedElement replaceElement) {
+        WrappedElement rebuiltElement;
         try {
-            this.wrappedElement = wrappedElement.rebuildArray(replaceIndex, replaceElement);
+            rebuiltElement = wrappedElement.rebuildArray(replaceIndex, replaceElement);
         } catch (WrappedElementException e) {
             throw new JsonEntityException(this, null, e.getMessage());
         }
+        clearChildCache();
+        relink(rebuiltElement);
+        return replaceElement == null ? this : wrap(replaceIndex, replaceElement);
+    }
 
-        // Gson does not support the modification of arrays (ie, deletes, changes, only adds) and therefore the
-        // entire JsonArray will have to be replaced. Consequence is that the parent nodes will have to be
-        // notified of the new instance.
+    /**
+     * Arrays are normally modified in place. Only if the array has been replaced by a new instance will the
+     * parent nodes have to be notified of the new instance.
+     * @param rebuiltElement the element holding the modified array
+     */
+    private void relink(WrappedElement rebuiltElement) {
+        if (rebuiltElement == wrappedElement) {
+            return;
+        }
+        this.wrappedElement = rebuiltElement;
         if (parent != null) {
             if (isIndexBased()) { // Update the parent array, possibly recursively
                 parent.rebuildArray(propertyIndex, wrappedElement);
@@ -531,7 +666,307 @@ public class JsonEntity implements Iterable<JsonEntity> {
                 parent.create(propertyName, wrappedElement);
             }
         }
-        return replaceElement == null ? this : wrap(replaceIndex, replaceElement);
+    }
+
+    /**
+     * Modifies the current array, which must be an array, in a single pass. The modifications are collected
+     * in the batch first, using the positions the elements have before the batch. Once the batch is complete,
+     * every element is moved to its new position at most once, and the parent is notified at most once.
+     * If the batch fails, the array is left untouched.
+     * @param edits callback collecting the modifications in the batch
+     * @return the current array
+     */
+    public JsonEntity batch(Consumer<ArrayBatch> edits) {
+        ArrayBatch batch = new ArrayBatch(this, arraySize());
+        edits.accept(batch);
+        if (batch.firstChange() <= arraySize()) {
+            try {
+                replaceElements(batch.firstChange(), batch.apply(wrappedElement));
+            } catch (WrappedElementException e) {
+                throw new JsonEntityException(this, null, e.getMessage());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Removes every child of the current array or object that matches the predicate. An array is compacted in
+     * a single pass, moving every remaining element at most once, and the parent is notified at most once.
+     * The properties of an object are removed one by one.
+     * @param predicate returns true for the children to remove. The name of a property is available through
+     *                  name() on the child
+     * @return the current array or object
+     */
+    public JsonEntity removeIf(Predicate<JsonEntity> predicate) {
+        if (isArray()) {
+            int size = arraySize();
+            int from = -1;
+            List<WrappedElement> remaining = new ArrayList<WrappedElement>();
+            for (int index = 0; index < size; index++) {
+                JsonEntity child = getAtIndex(index);
+                if (predicate.test(child)) {
+                    from = from == -1 ? index : from;
+                } else if (from != -1) {
+                    remaining.add(child.wrappedElement);
+                }
+            }
+            if (from != -1) {
+                replaceElements(from, remaining);
+            }
+            return this;
+        }
+        if (!isObject()) {
+            throw new JsonEntityException(this, null, "is not an array or object, therefore no children can be removed");
+        }
+        try {
+            for (String property : wrappedElement.propertyNames()) {
+                if (predicate.test(wrap(property, wrappedElement.get(property)))) {
+                    wrappedElement.remove(property);
+                }
+            }
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(this, null, e.getMessage());
+        }
+        clearChildCache();
+        return this;
+    }
+
+    /**
+     * Keeps only the children of the current array or object that match the predicate. See removeIf().
+     * @param predicate returns true for the children to keep
+     * @return the current array or object
+     */
+    public JsonEntity retainIf(Predicate<JsonEntity> predicate) {
+        return removeIf(predicate.negate());
+    }
+
+    /**
+     * Copies the children of the current array or object that match the predicate into a new array or object.
+     * The current element is not modified.
+     * @param predicate returns true for the children to copy
+     * @return new array or object with copies of the matching children, un-coupled from the current element
+     */
+    public JsonEntity filter(Predicate<JsonEntity> predicate) {
+        if (isArray()) {
+            JsonArray array = new JsonArray();
+            for (JsonEntity child : this) {
+                if (predicate.test(child)) {
+                    array.add(child.wrappedElement.deepCopy().raw());
+                }
+            }
+            return new JsonEntity(array);
+        }
+        if (!isObject()) {
+            throw new JsonEntityException(this, null, "is not an array or object, therefore its children cannot be filtered");
+        }
+        JsonObject object = new JsonObject();
+        try {
+            for (String property : wrappedElement.propertyNames()) {
+                JsonEntity child = wrap(property, wrappedElement.get(property));
+                if (predicate.test(child)) {
+                    object.add(property, child.wrappedElement.deepCopy().raw());
+                }
+            }
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(this, null, e.getMessage());
+        }
+        return new JsonEntity(object);
+    }
+
+    /**
+     * Replaces the elements of the array from a position onwards, overwriting them in place and growing or
+     * shrinking the array at its end
+     * @param from position of the first element to replace
+     * @param elements the new elements from that position onwards
+     */
+    private void replaceElements(int from, List<WrappedElement> elements) {
+        replaceElements(from, arraySize(), elements);
+    }
+
+    /**
+     * Replaces a range of elements of the array, overwriting them in place. Only if the number of elements
+     * changes are the elements following the range shifted, each of them once, and is the array grown or
+     * shrunk at its end.
+     * @param from position of the first element to replace
+     * @param to position directly after the last element to replace
+     * @param elements the new elements for the range
+     */
+    private void replaceElements(int from, int to, List<WrappedElement> elements) {
+        WrappedElement array = wrappedElement;
+        try {
+            int size = array.arraySize();
+            if (elements.size() != to - from && to < size) {
+                List<WrappedElement> shifted = new ArrayList<WrappedElement>(elements.size() + size - to);
+                shifted.addAll(elements);
+                for (int index = to; index < size; index++) {
+                    shifted.add(array.getAtIndex(index));
+                }
+                elements = shifted;
+                to = size;
+            }
+            boolean throughEnd = to == size;
+            int index = from;
+            for (WrappedElement element : elements) {
+                if (index < size) {
+                    array = array.rebuildArray(index, element);
+                } else {
+                    array.linkToArray(index, element);
+                }
+                index++;
+            }
+            while (throughEnd && size > index) {
+                array = array.rebuildArray(--size, null);
+            }
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(this, null, e.getMessage());
+        }
+        clearChildCache();
+        relink(array);
+    }
+
+    /**
+     * Inserts a JsonEntity into the array at the index position. The elements from that position onwards are
+     * shifted one position up, each of them once. The JSON tree in the JsonEntity will be stored here.
+     * @param index position within the array, which may be the size of the array to append the JsonEntity
+     * @param jsonEntity JsonEntity to insert
+     * @return the inserted JsonEntity (if array/object) or the array (if primitive/null)
+     */
+    public JsonEntity insert(int index, JsonEntity jsonEntity) {
+        return insert(index, jsonEntity.raw());
+    }
+
+    /**
+     * Inserts a JsonElement into the array at the index position. The elements from that position onwards
+     * are shifted one position up, each of them once.
+     * @param index position within the array, which may be the size of the array to append the JsonElement
+     * @param jsonEntity JsonElement to insert
+     * @return the inserted JsonEntity (if array/object) or the array (if primitive/null)
+     */
+    public JsonEntity insert(int index, JsonElement jsonEntity) {
+        return insert(index, WrapFactory.wrap(jsonEntity));
+    }
+
+    /**
+     * Inserts a String value into the array at the index position
+     * @param index position within the array, which may be the size of the array to append the value
+     * @param value value to insert
+     * @return the array in which the value was inserted
+     */
+    public JsonEntity insert(int index, String value) {
+        return insert(index, createPrimitiveString(value));
+    }
+
+    /**
+     * Inserts a Number value into the array at the index position
+     * @param index position within the array, which may be the size of the array to append the value
+     * @param value value to insert
+     * @return the array in which the value was inserted
+     */
+    public JsonEntity insert(int index, Number value) {
+        return insert(index, createPrimitiveNumber(value));
+    }
+
+    /**
+     * Inserts a Boolean value into the array at the index position
+     * @param index position within the array, which may be the size of the array to append the value
+     * @param value value to insert
+     * @return the array in which the value was inserted
+     */
+    public JsonEntity insert(int index, Boolean value) {
+        return insert(index, createPrimitiveBoolean(value));
+    }
+
+    private JsonEntity insert(int index, WrappedElement jsonEntity) {
+        checkRange(index, index);
+        replaceElements(index, index, Collections.<WrappedElement>singletonList(jsonEntity));
+        return jsonEntity.fluentPlayer() ? wrap(index, jsonEntity) : this;
+    }
+
+    /**
+     * Removes a number of elements from the array at the index position and inserts the given JsonEntities in
+     * their place, in a single pass. The JSON trees of the JsonEntities will be stored here.
+     * @param index position of the first element to remove
+     * @param deleteCount number of elements to remove
+     * @param jsonEntities JsonEntities to insert at the index position
+     * @return new array with the removed elements, un-coupled from the current array
+     */
+    public JsonEntity splice(int index, int deleteCount, JsonEntity... jsonEntities) {
+        checkRange(index, index + deleteCount);
+        List<WrappedElement> elements = new ArrayList<WrappedElement>(jsonEntities.length);
+        for (JsonEntity jsonEntity : jsonEntities) {
+            elements.add(WrapFactory.wrap(jsonEntity.raw()));
+        }
+        JsonArray removed = new JsonArray(deleteCount);
+        try {
+            for (int position = index; position < index + deleteCount; position++) {
+                removed.add(wrappedElement.getAtIndex(position).raw());
+            }
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(this, null, e.getMessage());
+        }
+        replaceElements(index, index + deleteCount, elements);
+        return new JsonEntity(removed);
+    }
+
+    /**
+     * Moves the element of the array at one position to another. Only the elements between both positions
+     * are shifted, each of them once.
+     * @param from current position of the element
+     * @param to position of the element after the move
+     * @return the array in which the element was moved
+     */
+    public JsonEntity move(int from, int to) {
+        checkRange(from, from + 1);
+        checkRange(to, to + 1);
+        if (from == to) {
+            return this;
+        }
+        int low = Math.min(from, to);
+        int high = Math.max(from, to);
+        List<WrappedElement> elements = new ArrayList<WrappedElement>(high - low + 1);
+        try {
+            if (from < to) { // the elements in between shift down
+                for (int index = from + 1; index <= to; index++) {
+                    elements.add(wrappedElement.getAtIndex(index));
+                }
+                elements.add(wrappedElement.getAtIndex(from));
+            } else { // the elements in between shift up
+                elements.add(wrappedElement.getAtIndex(from));
+                for (int index = to; index < from; index++) {
+                    elements.add(wrappedElement.getAtIndex(index));
+                }
+            }
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(this, null, e.getMessage());
+        }
+        replaceElements(low, high + 1, elements);
+        return this;
+    }
+
+    /**
+     * Copies a range of elements of the array into a new array. The current array is not modified.
+     * @param from position of the first element to copy
+     * @param to position directly after the last element to copy
+     * @return new array with copies of the elements, un-coupled from the current array
+     */
+    public JsonEntity slice(int from, int to) {
+        checkRange(from, to);
+        JsonArray array = new JsonArray(to - from);
+        try {
+            for (int index = from; index < to; index++) {
+                array.add(wrappedElement.getAtIndex(index).deepCopy().raw());
+            }
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(this, null, e.getMessage());
+        }
+        return new JsonEntity(array);
+    }
+
+    private void checkRange(int from, int to) {
+        int size = arraySize();
+        if (from < 0 || to < from || to > size) {
+            throw new JsonEntityException(this, null, "index out of bounds: range "+from+".."+to+" does not fit in "+size+" length");
+        }
     }
 
     private boolean isIndexBased() {
@@ -734,6 +1169,35 @@ public class JsonEntity implements Iterable<JsonEntity> {
         return get(property).asInt();
     }
 
+    /**
+     * Returns the current primitive element as a long. Numbers are parsed directly into a long, without
+     * going through BigDecimal or BigInteger.
+     * @return long value of the current primitive
+     */
+    public long asLong() {
+        try {
+            return wrappedElement.asLong();
+        } catch (WrappedElementException err) {
+            throw new JsonEntityException(this, null, err.getMessage());
+        }
+    }
+
+    /**
+     * Convenience method for returning the primitive at the position in the array as a long
+     * @return long value of the primitive at the position in the array
+     */
+    public long asLong(int property) {
+        return get(property).asLong();
+    }
+
+    /**
+     * Convenience method for returning the primitive with property name from the object as a long
+     * @return long value of the primitive at the position in the array
+     */
+    public long asLong(String property) {
+        return get(property).asLong();
+    }
+
     /**
      * Returns the current primitive element as a byte
      * @return byte value of the current primitive
@@ -819,110 +1283,456 @@ public class JsonEntity implements Iterable<JsonEntity> {
     }
 
     /**
-     * Makes sures to convert the value to an array, regardless of whether it already is an array, or
-     * an object
-     * @param index index of the element within an array
-     * @return element with index, as an array
+     * Returns all the primitives in the current array as doubles. The values are read directly from the
+     * underlying array, without wrapping the elements.
+     * @return the values of the array
      */
-    public JsonEntity convertToArray(int index) {
-        return convertToArray(get(index));
+    public double[] toDoubleArray() {
+        try {
+            return wrappedElement.toDoubleArray();
+        } catch (WrappedElementException err) {
+            throw new JsonEntityException(this, null, err.getMessage());
+        }
     }
 
     /**
-     * Makes sure to convert the value to an array, regardless of whether it already is an array, or
-     * an object
-     * @param property property name of the element to return
-     * @return element with property name
+     * Returns all the primitives in the current array as ints. The values are read directly from the
+     * underlying array, without wrapping the elements.
+     * @return the values of the array
      */
-    public JsonEntity convertToArray(String property) {
-        return convertToArray(get(property));
+    public int[] toIntArray() {
+        try {
+            return wrappedElement.toIntArray();
+        } catch (WrappedElementException err) {
+            throw new JsonEntityException(this, null, err.getMessage());
+        }
     }
 
-    private JsonEntity convertToArray(JsonEntity jsonEntity) {
-        if (jsonEntity.isArray()) {
-            return jsonEntity;
+    /**
+     * Returns all the primitives in the current array as longs. The values are read directly from the
+     * underlying array, without wrapping the elements.
+     * @return the values of the array
+     */
+    public long[] toLongArray() {
+        try {
+            return wrappedElement.toLongArray();
+        } catch (WrappedElementException err) {
+            throw new JsonEntityException(this, null, err.getMessage());
         }
-        jsonEntity.removeMe();
-        JsonEntity array = this.createArray(jsonEntity);
-        array.create(jsonEntity);
-        return array;
     }
 
     /**
-     * Returns an element on the basis of an index. The current element must be an array for this to work
-     * @param index index of the element within an array
-     * @return element with index
+     * Returns all the primitives in the current array as Strings. The values are read directly from the
+     * underlying array, without wrapping the elements.
+     * @return the values of the array
      */
-    public JsonEntity get(int index) {
-        return getAtIndex(index);
+    public String[] toStringArray() {
+        try {
+            return wrappedElement.toStringArray();
+        } catch (WrappedElementException err) {
+            throw new JsonEntityException(this, null, err.getMessage());
+        }
     }
 
     /**
-     * Returns an element on the basis of a property name. The current element must be an object for this to work.
-     * @param property property name of the element to return
-     * @return element with property name
+     * Passes all the primitives in the current array to the consumer as doubles. The values are read directly
+     * from the underlying array, without wrapping the elements or collecting them first.
+     * @param consumer receives the values of the array, in order
      */
-    public JsonEntity get(String property) {
+    public void forEachDouble(DoubleConsumer consumer) {
         try {
-            return wrap(property, wrappedElement.get(property));
+            wrappedElement.forEachDouble(consumer);
         } catch (WrappedElementException err) {
             throw new JsonEntityException(this, null, err.getMessage());
         }
     }
-    
+
     /**
-     * Returns an element on the basis of a property name. Whenever the property cannot be found, we return
-     * an empty object. The current element must be an object for this to work.
-     * @param property property name of the element to return
-     * @return element with property name
+     * Returns the current element as an int, if it is a number or a String containing an int. No exception is
+     * thrown if it is not.
+     * @return int value of the current element, or empty if it cannot be converted
      */
-    public JsonEntity getSafely(String property) {
-        JsonEntity entity = get(property);
-        return entity != null ? entity : new JsonEntity(NULL);
+    public OptionalInt asOptionalInt() {
+        return wrappedElement.asOptionalInt();
     }
 
     /**
-     * If the current element is an array, this method will return true
-     * @return true if the current element is an array
+     * Returns the current element as a long, if it is a number or a String containing a long. No exception is
+     * thrown if it is not.
+     * @return long value of the current element, or empty if it cannot be converted
      */
-    public boolean isArray() {
-        return wrappedElement.isArray();
+    public OptionalLong asOptionalLong() {
+        return wrappedElement.asOptionalLong();
     }
 
     /**
-     * If the current element is a primitive, this method will return true
-     * @return true if the current element is a primitive
+     * Returns the current element as a double, if it is a number or a String containing a double. No
+     * exception is thrown if it is not.
+     * @return double value of the current element, or empty if it cannot be converted
      */
-    public boolean isPrimitive() {
-        return wrappedElement.isPrimitive();
+    public OptionalDouble asOptionalDouble() {
+        return wrappedElement.asOptionalDouble();
     }
 
     /**
-     * If the current element is an object, this method will return true
-     * @return true if the current element is an object
+     * Returns the current element as a String, if it is a primitive. No exception is thrown if it is not.
+     * @return String value of the current element, or empty if it is not a primitive
      */
-    public boolean isObject() {
-        return wrappedElement.isObject();
+    public Optional<String> asOptionalString() {
+        return wrappedElement.asOptionalString();
     }
 
     /**
-     * If the current element is empty (ie, 'null'), this method will return true
-     * @return true if the current element is empty
+     * Returns the current element as a boolean, if it is a boolean or a String containing "true" or "false".
+     * No exception is thrown if it is not.
+     * @return boolean value of the current element, or empty if it cannot be converted
      */
-    public boolean isNull() {
-        return wrappedElement.isNull();
+    public Optional<Boolean> asOptionalBoolean() {
+        return wrappedElement.asOptionalBoolean();
     }
 
-    private String property(int index) {
-        return "["+index+"]";
+    /**
+     * Returns the current element as an int, or the default value if it cannot be converted
+     * @param defaultValue value to return if the current element cannot be converted
+     * @return int value of the current element or the default value
+     */
+    public int asIntOrDefault(int defaultValue) {
+        return wrappedElement.asOptionalInt().orElse(defaultValue);
     }
 
     /**
-     * Returns the parent of the current element. This operation can be used in a fluent manner to navigate
-     * the JSON tree without having to break the method chain.
-     * @return the parent of the current element
+     * Returns the current element as a long, or the default value if it cannot be converted
+     * @param defaultValue value to return if the current element cannot be converted
+     * @return long value of the current element or the default value
      */
-    public JsonEntity parent() {
+    public long asLongOrDefault(long defaultValue) {
+        return wrappedElement.asOptionalLong().orElse(defaultValue);
+    }
+
+    /**
+     * Returns the current element as a double, or the default value if it cannot be converted
+     * @param defaultValue value to return if the current element cannot be converted
+     * @return double value of the current element or the default value
+     */
+    public double asDoubleOrDefault(double defaultValue) {
+        return wrappedElement.asOptionalDouble().orElse(defaultValue);
+    }
+
+    /**
+     * Returns the current element as a String, or the default value if it is not a primitive
+     * @param defaultValue value to return if the current element is not a primitive
+     * @return String value of the current element or the default value
+     */
+    public String asStringOrDefault(String defaultValue) {
+        return wrappedElement.asOptionalString().orElse(defaultValue);
+    }
+
+    /**
+     * Returns the current element as a boolean, or the default value if it cannot be converted
+     * @param defaultValue value to return if the current element cannot be converted
+     * @return boolean value of the current element or the default value
+     */
+    public boolean asBooleanOrDefault(boolean defaultValue) {
+        return wrappedElement.asOptionalBoolean().orElse(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive with property name from the object as an int. If the
+     * current element is not an object, the property does not exist or cannot be converted, the default
+     * value is returned instead of throwing an exception.
+     * @param property name of the property
+     * @param defaultValue value to return if the property cannot be converted
+     * @return int value of the property or the default value
+     */
+    public int optInt(String property, int defaultValue) {
+        JsonEntity child = tryGet(property);
+        return child == null ? defaultValue : child.asIntOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive at the position in the array as an int. If the current
+     * element is not an array, the position does not exist or cannot be converted, the default value is
+     * returned instead of throwing an exception.
+     * @param index position within the array
+     * @param defaultValue value to return if the element cannot be converted
+     * @return int value of the element or the default value
+     */
+    public int optInt(int index, int defaultValue) {
+        JsonEntity child = tryGet(index);
+        return child == null ? defaultValue : child.asIntOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive with property name from the object as a long. If the
+     * current element is not an object, the property does not exist or cannot be converted, the default
+     * value is returned instead of throwing an exception.
+     * @param property name of the property
+     * @param defaultValue value to return if the property cannot be converted
+     * @return long value of the property or the default value
+     */
+    public long optLong(String property, long defaultValue) {
+        JsonEntity child = tryGet(property);
+        return child == null ? defaultValue : child.asLongOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive at the position in the array as a long. If the current
+     * element is not an array, the position does not exist or cannot be converted, the default value is
+     * returned instead of throwing an exception.
+     * @param index position within the array
+     * @param defaultValue value to return if the element cannot be converted
+     * @return long value of the element or the default value
+     */
+    public long optLong(int index, long defaultValue) {
+        JsonEntity child = tryGet(index);
+        return child == null ? defaultValue : child.asLongOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive with property name from the object as a double. If the
+     * current element is not an object, the property does not exist or cannot be converted, the default
+     * value is returned instead of throwing an exception.
+     * @param property name of the property
+     * @param defaultValue value to return if the property cannot be converted
+     * @return double value of the property or the default value
+     */
+    public double optDouble(String property, double defaultValue) {
+        JsonEntity child = tryGet(property);
+        return child == null ? defaultValue : child.asDoubleOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive at the position in the array as a double. If the current
+     * element is not an array, the position does not exist or cannot be converted, the default value is
+     * returned instead of throwing an exception.
+     * @param index position within the array
+     * @param defaultValue value to return if the element cannot be converted
+     * @return double value of the element or the default value
+     */
+    public double optDouble(int index, double defaultValue) {
+        JsonEntity child = tryGet(index);
+        return child == null ? defaultValue : child.asDoubleOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive with property name from the object as a String. If the
+     * current element is not an object, the property does not exist or is not a primitive, the default value
+     * is returned instead of throwing an exception.
+     * @param property name of the property
+     * @param defaultValue value to return if the property is not a primitive
+     * @return String value of the property or the default value
+     */
+    public String optString(String property, String defaultValue) {
+        JsonEntity child = tryGet(property);
+        return child == null ? defaultValue : child.asStringOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive at the position in the array as a String. If the current
+     * element is not an array, the position does not exist or is not a primitive, the default value is
+     * returned instead of throwing an exception.
+     * @param index position within the array
+     * @param defaultValue value to return if the element is not a primitive
+     * @return String value of the element or the default value
+     */
+    public String optString(int index, String defaultValue) {
+        JsonEntity child = tryGet(index);
+        return child == null ? defaultValue : child.asStringOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive with property name from the object as a boolean. If the
+     * current element is not an object, the property does not exist or cannot be converted, the default
+     * value is returned instead of throwing an exception.
+     * @param property name of the property
+     * @param defaultValue value to return if the property cannot be converted
+     * @return boolean value of the property or the default value
+     */
+    public boolean optBoolean(String property, boolean defaultValue) {
+        JsonEntity child = tryGet(property);
+        return child == null ? defaultValue : child.asBooleanOrDefault(defaultValue);
+    }
+
+    /**
+     * Convenience method for returning the primitive at the position in the array as a boolean. If the current
+     * element is not an array, the position does not exist or cannot be converted, the default value is
+     * returned instead of throwing an exception.
+     * @param index position within the array
+     * @param defaultValue value to return if the element cannot be converted
+     * @return boolean value of the element or the default value
+     */
+    public boolean optBoolean(int index, boolean defaultValue) {
+        JsonEntity child = tryGet(index);
+        return child == null ? defaultValue : child.asBooleanOrDefault(defaultValue);
+    }
+
+    /**
+     * Makes sures to convert the value to an array, regardless of whether it already is an array, or
+     * an object
+     * @param index index of the element within an array
+     * @return element with index, as an array
+     */
+    public JsonEntity convertToArray(int index) {
+        return convertToArray(get(index));
+    }
+
+    /**
+     * Makes sure to convert the value to an array, regardless of whether it already is an array, or
+     * an object
+     * @param property property name of the element to return
+     * @return element with property name
+     */
+    public JsonEntity convertToArray(String property) {
+        return convertToArray(get(property));
+    }
+
+    private JsonEntity convertToArray(JsonEntity jsonEntity) {
+        if (jsonEntity.isArray()) {
+            return jsonEntity;
+        }
+        jsonEntity.removeMe();
+        JsonEntity array = this.createArray(jsonEntity);
+        array.create(jsonEntity);
+        return array;
+    }
+
+    /**
+     * Returns an element on the basis of an index. The current element must be an array for this to work
+     * @param index index of the element within an array
+     * @return element with index
+     */
+    public JsonEntity get(int index) {
+        return getAtIndex(index);
+    }
+
+    /**
+     * Returns an element on the basis of a property name. The current element must be an object for this to work.
+     * @param property property name of the element to return
+     * @return element with property name
+     */
+    public JsonEntity get(String property) {
+        if (childCache != null) {
+            JsonEntity cachedChild = childCache.get(property);
+            if (cachedChild != null) {
+                return cachedChild;
+            }
+        }
+        EntityPool pool = pool();
+        if (pool != null && wrappedElement instanceof WrappedObject) {
+            JsonElement element = ((JsonObject)wrappedElement.raw()).get(property);
+            return element == null ? null : pool.entity(this, property, -1, pool.wrap(element));
+        }
+        JsonEntity child;
+        try {
+            child = wrap(property, wrappedElement.get(property));
+        } catch (WrappedElementException err) {
+            throw new JsonEntityException(this, null, err.getMessage());
+        }
+        if (childCache != null && child != null) {
+            childCache.put(property, child);
+        }
+        return child;
+    }
+    
+    /**
+     * Returns an element on the basis of a property name. Contrary to get(String), no exception is thrown
+     * if the current element is not an object.
+     * @param property property name of the element to return
+     * @return element with property name, or null if the current element is not an object or does not
+     *         have the property
+     */
+    public JsonEntity tryGet(String property) {
+        return isObject() ? get(property) : null;
+    }
+
+    /**
+     * Returns an element on the basis of an index. Contrary to get(int), no exception is thrown if the
+     * current element is not an array or if the index is out of bounds.
+     * @param index index of the element within an array
+     * @return element with index, or null if the current element is not an array or the index is out
+     *         of bounds
+     */
+    public JsonEntity tryGet(int index) {
+        return isArray() && index >= 0 && index < arraySize() ? getAtIndex(index) : null;
+    }
+
+    /**
+     * Returns an element on the basis of a property name. Whenever the property cannot be found, we return
+     * an empty object. The current element must be an object for this to work.
+     * @param property property name of the element to return
+     * @return element with property name
+     */
+    public JsonEntity getSafely(String property) {
+        JsonEntity entity = get(property);
+        return entity != null ? entity : new JsonEntity(NULL);
+    }
+
+    /**
+     * If the current element is an array, this method will return true
+     * @return true if the current element is an array
+     */
+    public boolean isArray() {
+        return wrappedElement.isArray();
+    }
+
+    /**
+     * If the current element is a primitive, this method will return true
+     * @return true if the current element is a primitive
+     */
+    public boolean isPrimitive() {
+        return wrappedElement.isPrimitive();
+    }
+
+    /**
+     * If the current element is an object, this method will return true
+     * @return true if the current element is an object
+     */
+    public boolean isObject() {
+        return wrappedElement.isObject();
+    }
+
+    /**
+     * If the current element is empty (ie, 'null'), this method will return true
+     * @return true if the current element is empty
+     */
+    public boolean isNull() {
+        return wrappedElement.isNull();
+    }
+
+    /**
+     * If the current element is a primitive holding a number, this method will return true
+     * @return true if the current element is a number
+     */
+    public boolean isNumber() {
+        return wrappedElement.isNumber();
+    }
+
+    /**
+     * If the current element is a primitive holding a String, this method will return true
+     * @return true if the current element is a String
+     */
+    public boolean isString() {
+        return wrappedElement.isString();
+    }
+
+    /**
+     * If the current element is a primitive holding a boolean, this method will return true
+     * @return true if the current element is a boolean
+     */
+    public boolean isBoolean() {
+        return wrappedElement.isBoolean();
+    }
+
+    private String property(int index) {
+        return "["+index+"]";
+    }
+
+    /**
+     * Returns the parent of the current element. This operation can be used in a fluent manner to navigate
+     * the JSON tree without having to break the method chain.
+     * @return the parent of the current element
+     */
+    public JsonEntity parent() {
         return parent;
     }
 
@@ -950,6 +1760,7 @@ public class JsonEntity implements Iterable<JsonEntity> {
         } catch (WrappedElementException e) {
             throw new JsonEntityException(this, null, e.getMessage());
         }
+        clearChildCache();
         return wrap(property, jsonEntity);
     }
 
@@ -959,6 +1770,7 @@ public class JsonEntity implements Iterable<JsonEntity> {
         } catch (WrappedElementException e) {
             throw new JsonEntityException(this, null, e.getMessage());
         }
+        clearChildCache();
         return wrap(index, jsonEntity);
     }
 
@@ -974,7 +1786,160 @@ public class JsonEntity implements Iterable<JsonEntity> {
         if (jsonElement == null) {
             return null;
         }
-        return new JsonEntity(this, propertyName, propertyIndex, jsonElement);
+        EntityPool pool = pool();
+        if (pool != null) {
+            return pool.entity(this, propertyName, propertyIndex, jsonElement);
+        }
+        JsonEntity child = new JsonEntity(this, propertyName, propertyIndex, jsonElement);
+        if (childCache != null) {
+            child.childCache = new ChildCache();
+        }
+        return child;
+    }
+
+    /**
+     * @return the pool of the scope open on the current thread, or null if there is none or if the children
+     * of this element are cached
+     */
+    private EntityPool pool() {
+        return childCache == null ? EntityPool.current() : null;
+    }
+
+    /**
+     * Opens a scope on the current thread, within which the JsonEntity instances handed out while navigating
+     * and modifying are reused from a pool instead of allocated. The instances are returned to the pool when
+     * the scope closes, after which they must no longer be used. See EntityScope.
+     * @return the scope, to be closed with try-with-resources
+     */
+    public static EntityScope scope() {
+        return new EntityScope();
+    }
+
+    /**
+     * Enables the caching of children for this element and, recursively, for every child it hands out.
+     * Repeated navigation to the same child, for example <code>json.get("a").get("b")</code> in a loop, then
+     * returns the same JsonEntity instance instead of wrapping the child again. The cache is cleared whenever
+     * the element is modified through this JsonEntity. Modifications made by other means, for example
+     * directly on the raw Gson element, are not detected.
+     * @return the current element
+     */
+    public JsonEntity cacheChildren() {
+        if (childCache == null) {
+            childCache = new ChildCache();
+        }
+        return this;
+    }
+
+    private void clearChildCache() {
+        if (childCache != null) {
+            childCache.clear();
+        }
+    }
+
+    /**
+     * Parses the JSON read from the reader into a JsonEntity. The characters are fed to the Gson parser
+     * directly, without building an intermediate String. The reader is not closed.
+     * @param reader source of the JSON string representation
+     * @return the parsed JsonEntity
+     */
+    public static JsonEntity parse(Reader reader) {
+        return new JsonEntity(JsonParser.parseReader(reader));
+    }
+
+    /**
+     * Parses the JSON read from the input stream into a JsonEntity. The bytes are decoded and fed to the
+     * Gson parser directly, without building an intermediate String. The input stream is not closed.
+     * @param inputStream source of the JSON string representation
+     * @param charset character set the JSON has been encoded in
+     * @return the parsed JsonEntity
+     */
+    public static JsonEntity parse(InputStream inputStream, Charset charset) {
+        return parse(new InputStreamReader(inputStream, charset));
+    }
+
+    /**
+     * Parses the remaining UTF-8 encoded bytes in the buffer into a JsonEntity. The position of the buffer
+     * is not changed.
+     * @param buffer source of the JSON string representation, encoded in UTF-8
+     * @return the parsed JsonEntity
+     */
+    public static JsonEntity parse(ByteBuffer buffer) {
+        return parse(buffer, UTF_8);
+    }
+
+    /**
+     * Parses the remaining bytes in the buffer into a JsonEntity. The position of the buffer is not changed.
+     * @param buffer source of the JSON string representation
+     * @param charset character set the JSON has been encoded in
+     * @return the parsed JsonEntity
+     */
+    public static JsonEntity parse(ByteBuffer buffer, Charset charset) {
+        return parse(new ByteBufferInputStream(buffer), charset);
+    }
+
+    /**
+     * Parses the UTF-8 encoded JSON into a compact, read-only JsonEntity. Instead of a tree of Gson nodes, the
+     * structure of the document is stored in a single array of offsets into the bytes, and values are only
+     * decoded when they are requested. This takes a fraction of the memory of a Gson tree, which makes it
+     * suitable for very large documents. The bytes are not copied, so they must not be modified afterwards.
+     * The entity can be navigated and read like any other, but every modification results in an exception.
+     * Gson nodes are only built when raw() is called; detachedCopy() returns a regular, modifiable copy.
+     * @param bytes the UTF-8 encoded JSON document
+     * @return the parsed, read-only JsonEntity
+     */
+    public static JsonEntity parseCompact(byte[] bytes) {
+        return parseCompact(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Parses the remaining UTF-8 encoded bytes in the buffer into a compact, read-only JsonEntity, as
+     * described for parseCompact(byte[]). The buffer may be a direct buffer, in which case the document
+     * stays off the heap. The position of the buffer is not changed.
+     * @param buffer the UTF-8 encoded JSON document
+     * @return the parsed, read-only JsonEntity
+     */
+    public static JsonEntity parseCompact(ByteBuffer buffer) {
+        return new JsonEntity(TapeElement.wrap(JsonTape.parse(new ByteBufferSource(buffer)), 0));
+    }
+
+    /**
+     * Memory-maps the UTF-8 encoded JSON file into a compact, read-only JsonEntity. Nothing but the start of
+     * the document is read up front. The children of an array or object are located the first time it is
+     * visited, by a single scan over its bytes, and values are only decoded when they are requested. Only the
+     * parts of the file that are touched are therefore paged in, and the pages are shared with any other
+     * process mapping the same file. Files larger than 2GB are supported. Syntax errors are reported when
+     * the offending part is visited. The file must not be modified while the JsonEntity is in use.
+     * @param path the JSON file to map
+     * @return the read-only JsonEntity backed by the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static JsonEntity mapFile(Path path) throws IOException {
+        return new JsonEntity(TapeElement.wrap(JsonTape.index(MappedFileSource.map(path)), 0));
+    }
+
+    /**
+     * Parses the JSON lazily. Up front, only the start of the document is located. The children of an array or
+     * object are located by a single scan over its bytes when it is first visited, and values are decoded when
+     * they are requested. An array or object is only turned into Gson nodes once it is modified or raw() is
+     * called on it. When the JSON is written, every part that has not been modified is copied verbatim from
+     * the original, including its formatting. This pays off when only a few values are read from, or
+     * modified in, a large document. Contrary to the constructor, the JSON must be strictly valid. Syntax
+     * errors are reported when the offending part is visited.
+     * @param jsonString JSON string representation
+     * @return the lazily parsed JsonEntity
+     */
+    public static JsonEntity parseLazy(String jsonString) {
+        return parseLazy(jsonString.getBytes(UTF_8));
+    }
+
+    /**
+     * Parses the UTF-8 encoded JSON lazily, as described for parseLazy(String). The bytes are not copied, so
+     * they must not be modified afterwards.
+     * @param bytes the UTF-8 encoded JSON document
+     * @return the lazily parsed JsonEntity
+     */
+    public static JsonEntity parseLazy(byte[] bytes) {
+        return new JsonEntity(LazyElement.wrap(JsonTape.index(new ByteBufferSource(ByteBuffer.wrap(bytes)))));
     }
 
     /**
@@ -994,24 +1959,217 @@ public class JsonEntity implements Iterable<JsonEntity> {
     }
 
     /**
-     * Returns the children in the current array as an iterator. Note that
-     * all children will be wrapped in a JsonEntity instance.
+     * Returns the children in the current array as an iterator. The children are wrapped in a JsonEntity
+     * instance one at a time, when they are requested by the iterator. If the current element is not
+     * an array, the iterator will be empty; objects, primitives and null values are iterated as if they
+     * were empty arrays, no exception is thrown.
      * @return iterator with the children of the array
      */
     @Override
     public Iterator<JsonEntity> iterator() {
-        try {
-            List<WrappedElement> wrappedElements = wrappedElement.list();
-            List<JsonEntity> list = new ArrayList<JsonEntity>(wrappedElements.size());
-            int index = 0;
-            for (WrappedElement wrappedElement : wrappedElements) {
-                list.add(wrap(index, wrappedElement));
-                index++;
+        return new ChildIterator();
+    }
+
+    /**
+     * Returns the children in the current array as a cursor. Contrary to iterator(), the cursor hands out
+     * the same JsonEntity instance for every child, repositioning it on every step. This makes it suitable
+     * for read-only scans over large arrays, since no objects are allocated per child. The handed out
+     * JsonEntity is only valid until the next step and must not be retained. If the current element is not
+     * an array, the cursor will be empty, just like the iterator.
+     * @return cursor over the children of the array
+     */
+    public Iterable<JsonEntity> cursor() {
+        return new Iterable<JsonEntity>() {
+            @Override
+            public Iterator<JsonEntity> iterator() {
+                return new ChildCursor();
+            }
+        };
+    }
+
+    /**
+     * Returns a spliterator over the children in the current array. It splits the array by index range, so
+     * that every part knows its exact size. If the current element is not an array, the spliterator will be
+     * empty.
+     * @return spliterator over the children of the array
+     */
+    @Override
+    public Spliterator<JsonEntity> spliterator() {
+        return new ChildSpliterator(0, isArray() ? arraySize() : 0);
+    }
+
+    /**
+     * Returns the children in the current array as a sequential stream. If the current element is not an
+     * array, the stream will be empty.
+     * @return stream of the children of the array
+     */
+    public Stream<JsonEntity> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns the children in the current array as a parallel stream. Every child may be read and modified
+     * within its own subtree, but not beyond it. Lazily parsed and memory-mapped arrays, and arrays of which
+     * the children are cached, build up state while they are being read and are therefore streamed
+     * sequentially. If the current element is not an array, the stream will be empty.
+     * @return possibly parallel stream of the children of the array
+     */
+    public Stream<JsonEntity> parallelStream() {
+        return StreamSupport.stream(spliterator(), concurrentReads());
+    }
+
+    /**
+     * Transforms every child in the current array, which must be an array, and collects the results in a
+     * new array in the same order. The children are transformed in parallel under the same conditions as
+     * parallelStream(). Every result is stored in its own slot, so the threads do not contend while the new
+     * array is being built. A result that is part of the current array, such as a child that is returned as
+     * it is, is copied, so the new array never shares its nodes with the current array. Modifications that
+     * the mapper makes to a child do remain in the current array, so a mapper that must leave the current
+     * array intact builds its result as a new element.
+     * @param mapper transforms a child into its result, which may be null for a JSON null value
+     * @return new array with the results, un-coupled from the current element
+     */
+    public JsonEntity parallelMap(Function<JsonEntity, JsonEntity> mapper) {
+        int size = arraySize();
+        JsonElement[] results = new JsonElement[size];
+        IntStream indices = IntStream.range(0, size);
+        if (concurrentReads()) {
+            indices = indices.parallel();
+        }
+        indices.forEach(index -> {
+            JsonEntity result = mapper.apply(getAtIndex(index));
+            results[index] = result == null ? JsonNull.INSTANCE : detached(result);
+        });
+        JsonArray array = new JsonArray(size);
+        for (JsonElement result : results) {
+            array.add(result);
+        }
+        return new JsonEntity(array);
+    }
+
+    private boolean concurrentReads() {
+        return childCache == null && wrappedElement.concurrentReads();
+    }
+
+    /**
+     * @return the JSON tree of the result, copied if the result is the current element or one of its
+     * descendants
+     */
+    private JsonElement detached(JsonEntity result) {
+        for (JsonEntity ancestor = result; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == this) {
+                return result.wrappedElement.deepCopy().raw();
             }
-            return list.iterator();
-        } catch (WrappedElementException err) {
-            throw new JsonEntityException(this, null, err.getMessage());
         }
+        return result.raw();
+    }
+
+    /**
+     * Takes a snapshot of the current node as the first version of a persistent tree. Modifications of the
+     * persistent tree return new versions that share all untouched subtrees with the previous version.
+     * @return persistent copy of the current node, un-coupled from its parent
+     */
+    public PersistentJsonEntity persistentCopy() {
+        return PersistentJsonEntity.of(this);
+    }
+
+    /**
+     * Copies the current object into an object that can be shared between threads, with striped locking
+     * on its properties
+     * @return concurrent copy of the current object, un-coupled from its parent
+     */
+    public ConcurrentJsonEntity concurrentCopy() {
+        return ConcurrentJsonEntity.of(this);
+    }
+
+    /**
+     * Copies the current node into an immutable snapshot. The hashes of all arrays and objects in the
+     * snapshot are computed once, so hashCode() no longer walks the tree, and equals() between two snapshots
+     * only compares their contents if their hashes are the same. This makes snapshots suitable as keys in
+     * maps and sets. The snapshot can be shared between threads without locking, as long as
+     * cacheChildren() is not called on it. Freezing a snapshot again returns a JsonEntity sharing the
+     * same immutable tree.
+     * @return immutable copy of the current node, un-coupled from its parent
+     */
+    public JsonEntity freeze() {
+        try {
+            return new JsonEntity(FrozenElement.freeze(wrappedElement));
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(this, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the JSON tree of the current element to the JsonWriter. The settings of the JsonWriter (such as
+     * indentation and leniency) are respected. The JsonWriter is neither flushed nor closed.
+     * @param writer the JsonWriter to write the JSON to
+     * @throws IOException if the writer fails
+     */
+    public void writeTo(JsonWriter writer) throws IOException {
+        wrappedElement.write(writer);
+    }
+
+    /**
+     * Streams the compact JSON string representation of the current element to the writer, without
+     * building the entire String first. The writer is flushed, but not closed.
+     * @param writer the writer to write the JSON to
+     * @throws IOException if the writer fails
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writeTo(writer, false);
+    }
+
+    /**
+     * Streams the JSON string representation of the current element to the writer, without building the
+     * entire String first. The writer is flushed, but not closed.
+     * @param writer the writer to write the JSON to
+     * @param prettyPrint true if the JSON must be indented, false for the compact representation
+     * @throws IOException if the writer fails
+     */
+    public void writeTo(Writer writer, boolean prettyPrint) throws IOException {
+        writeTo(new JsonWriter(writer), prettyPrint);
+    }
+
+    private void writeTo(JsonWriter jsonWriter, boolean prettyPrint) throws IOException {
+        jsonWriter.setLenient(true);
+        if (prettyPrint) {
+            jsonWriter.setIndent("  ");
+        }
+        writeTo(jsonWriter);
+        jsonWriter.flush();
+    }
+
+    /**
+     * Streams the compact JSON string representation of the current element to the Appendable, for
+     * example a StringBuilder.
+     * @param appendable the Appendable to write the JSON to
+     * @throws IOException if the Appendable fails
+     */
+    public void writeTo(Appendable appendable) throws IOException {
+        writeTo(appendable instanceof Writer ? (Writer)appendable : new AppendableWriter(appendable));
+    }
+
+    /**
+     * Streams the compact JSON string representation of the current element to the output stream, encoded
+     * in UTF-8. The output stream is flushed, but not closed.
+     * @param outputStream the output stream to write the JSON to
+     * @throws IOException if the output stream fails
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        writeTo(outputStream, false, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Streams the JSON string representation of the current element to the output stream, encoded in
+     * UTF-8. The parts of a lazily parsed document that have not been modified are copied byte for byte.
+     * The output stream is flushed, but not closed.
+     * @param outputStream the output stream to write the JSON to
+     * @param prettyPrint true if the JSON must be indented, false for the compact representation
+     * @param bufferSize size of the buffer (in bytes) used before writing to the output stream
+     * @throws IOException if the output stream fails
+     */
+    public void writeTo(OutputStream outputStream, boolean prettyPrint, int bufferSize) throws IOException {
+        writeTo(new SpanWriter(new Utf8Writer(outputStream, bufferSize)), prettyPrint);
     }
 
     /**
@@ -1019,30 +2177,195 @@ public class JsonEntity implements Iterable<JsonEntity> {
      * @return copy of the current node, un-coupled from its parent
      */
     public JsonEntity detachedCopy() {
-        return new JsonEntity(wrappedElement.raw().toString());
+        return new JsonEntity(wrappedElement.deepCopy());
     }
 
     /**
-     * Uses the JsonElement.toString() to show the JSON string representation
+     * Shows the compact JSON string representation. For Gson elements, JsonElement.toString() is used
      * @return JSON string representation
      */
     @Override
     public String toString() {
-        return wrappedElement.raw().toString();
+        return wrappedElement.toJson();
     }
 
     @Override
     public int hashCode() {
-        return wrappedElement.raw().hashCode();
+        return wrappedElement.structuralHash();
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if (!(obj instanceof JsonEntity)) {
             return false;
         }
         JsonEntity element = (JsonEntity)obj;
-        return raw().equals(element.raw());
+        return wrappedElement.structurallyEquals(element.wrappedElement);
+    }
+
+    /**
+     * Iterates over the children of an array, wrapping every child only when it is requested
+     */
+    private class ChildIterator implements Iterator<JsonEntity> {
+
+        /** index of the next child to hand out */
+        private int index;
+
+        /** index of the last child handed out, -1 if there is none or if it has been removed */
+        private int lastIndex = -1;
+
+        @Override
+        public boolean hasNext() {
+            return isArray() && index < arraySize();
+        }
+
+        @Override
+        public JsonEntity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastIndex = index++;
+            return getAtIndex(lastIndex);
+        }
+
+        @Override
+        public void remove() {
+            if (lastIndex == -1) {
+                throw new IllegalStateException();
+            }
+            JsonEntity.this.remove(lastIndex);
+            index = lastIndex;
+            lastIndex = -1;
+        }
+
+    }
+
+    /**
+     * Splits the children of an array by index range, wrapping every child only when it is requested
+     */
+    private class ChildSpliterator implements Spliterator<JsonEntity> {
+
+        /** index of the next child to hand out */
+        private int index;
+
+        /** index directly after the last child to hand out */
+        private final int end;
+
+        private ChildSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JsonEntity> action) {
+            if (index >= end) {
+                return false;
+            }
+            action.accept(getAtIndex(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super JsonEntity> action) {
+            while (index < end) {
+                action.accept(getAtIndex(index++));
+            }
+        }
+
+        @Override
+        public Spliterator<JsonEntity> trySplit() {
+            int middle = (index + end) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            ChildSpliterator prefix = new ChildSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+
+    }
+
+    /**
+     * Iterates over the children of an array, reusing the same JsonEntity and WrappedElement instances
+     * for every child
+     */
+    private class ChildCursor implements Iterator<JsonEntity> {
+
+        /** the JsonEntity that is repositioned on every child */
+        private final JsonEntity flyweight = new JsonEntity(JsonEntity.this, null, -1, NULL);
+
+        private final WrappedObject object = new WrappedObject();
+
+        private final WrappedArray array = new WrappedArray();
+
+        private final WrappedPrimitive primitive = new WrappedPrimitive(new JsonPrimitive(""));
+
+        /** index of the next child to hand out */
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return isArray() && index < arraySize();
+        }
+
+        @Override
+        public JsonEntity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            flyweight.propertyIndex = index;
+            if (wrappedElement instanceof WrappedArray) {
+                flyweight.wrappedElement = reuse(((JsonArray)raw()).get(index));
+            } else {
+                flyweight.wrappedElement = wrappedChild(index);
+            }
+            index++;
+            return flyweight;
+        }
+
+        private WrappedElement reuse(JsonElement json) {
+            if (json == null || json.isJsonNull()) {
+                return NULL;
+            }
+            if (json.isJsonArray()) {
+                array.json = json.getAsJsonArray();
+                return array;
+            }
+            if (json.isJsonPrimitive()) {
+                primitive.json = json.getAsJsonPrimitive();
+                return primitive;
+            }
+            object.json = json.getAsJsonObject();
+            return object;
+        }
+
+        /** backends other than Gson hand out their own children */
+        private WrappedElement wrappedChild(int index) {
+            try {
+                return wrappedElement.getAtIndex(index);
+            } catch (WrappedElementException e) {
+                throw new JsonEntityException(JsonEntity.this, null, e.getMessage());
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("a cursor is read-only");
+        }
+
     }
 
 }
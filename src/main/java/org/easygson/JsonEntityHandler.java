@@ -0,0 +1,15 @@
+package org.easygson;
+
+/**
+ * Callback that receives JsonEntity instances one at a time, for example while streaming through
+ * a large JSON document
+ */
+public interface JsonEntityHandler {
+
+    /**
+     * Handles a single JsonEntity
+     * @param jsonEntity the JsonEntity to handle
+     */
+    void handle(JsonEntity jsonEntity);
+
+}
@@ -0,0 +1,272 @@
+package org.easygson;
+
+import com.google.gson.JsonElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Compiled path expression, supporting a subset of JSONPath: properties (<code>.name</code> or
+ * <code>['name']</code>), array positions (<code>[3]</code>), slices (<code>[0:10]</code>) and wildcards
+ * (<code>[*]</code> or <code>.*</code>). For example:</p>
+ *
+ * <pre>
+ * JsonPath title = JsonPath.compile("$.chapters[1].title");
+ * String value = title.readString(json);
+ * </pre>
+ *
+ * <p>The path is resolved directly against the elements underneath a JsonEntity, so no intermediate
+ * JsonEntity instances are created while navigating. Compact, memory-mapped and lazily parsed documents are
+ * navigated in place, without building a Gson tree for them. A compiled JsonPath is immutable and can be
+ * shared freely between threads.</p>
+ */
+public class JsonPath {
+
+    /** the original path expression */
+    private final String path;
+
+    private final PathSegment[] segments;
+
+    /** true if the path selects at most a single element */
+    private final boolean definite;
+
+    private JsonPath(String path, List<PathSegment> segments) {
+        this.path = path;
+        this.segments = segments.toArray(new PathSegment[segments.size()]);
+        boolean definite = true;
+        for (PathSegment segment : segments) {
+            definite &= segment.isDefinite();
+        }
+        this.definite = definite;
+    }
+
+    /**
+     * Compiles the path expression
+     * @param path path expression, for example <code>$.a.b[3].c</code>
+     * @return the compiled path
+     */
+    public static JsonPath compile(String path) {
+        return new JsonPath(path, PathSegment.parse(path));
+    }
+
+    /**
+     * Determines whether the path always selects at most a single element, ie it contains no wildcards
+     * and no slices
+     * @return true if the path selects at most a single element
+     */
+    public boolean isDefinite() {
+        return definite;
+    }
+
+    /**
+     * Returns the first element selected by the path. The returned JsonEntity has no parent.
+     * @param json the element to apply the path to
+     * @return the first element selected, or null if the path selects nothing
+     */
+    public JsonEntity read(JsonEntity json) {
+        WrappedElement element = find(json);
+        return element == null ? null : new JsonEntity(null, null, -1, element);
+    }
+
+    /**
+     * Returns the first Gson element selected by the path
+     * @param json the Gson element to apply the path to
+     * @return the first element selected, or null if the path selects nothing
+     */
+    public JsonElement readRaw(JsonElement json) {
+        WrappedElement element = find(new JsonEntity(json));
+        return element == null ? null : element.raw();
+    }
+
+    /**
+     * Returns the primitive selected by the path as a String
+     * @param json the element to apply the path to
+     * @return String value of the selected primitive
+     */
+    public String readString(JsonEntity json) {
+        try {
+            return primitive(json).asString();
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(json, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the primitive selected by the path as an int
+     * @param json the element to apply the path to
+     * @return int value of the selected primitive
+     */
+    public int readInt(JsonEntity json) {
+        try {
+            return primitive(json).asInt();
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(json, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the primitive selected by the path as a long
+     * @param json the element to apply the path to
+     * @return long value of the selected primitive
+     */
+    public long readLong(JsonEntity json) {
+        try {
+            return primitive(json).asLong();
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(json, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the primitive selected by the path as a double
+     * @param json the element to apply the path to
+     * @return double value of the selected primitive
+     */
+    public double readDouble(JsonEntity json) {
+        try {
+            return primitive(json).asDouble();
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(json, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the primitive selected by the path as a boolean
+     * @param json the element to apply the path to
+     * @return boolean value of the selected primitive
+     */
+    public boolean readBoolean(JsonEntity json) {
+        try {
+            return primitive(json).asBoolean();
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(json, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Hands every element selected by the path to the handler, in document order. The elements are
+     * wrapped one at a time, without collecting them first. The handed out JsonEntity instances have
+     * no parent.
+     * @param json the element to apply the path to
+     * @param handler receives the selected elements
+     */
+    public void forEach(JsonEntity json, JsonEntityHandler handler) {
+        try {
+            select(json.wrappedElement(), 0, handler);
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(json, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns all the elements selected by the path, in document order
+     * @param json the element to apply the path to
+     * @return the selected elements, an empty list if there are none
+     */
+    public List<JsonEntity> readAll(JsonEntity json) {
+        final List<JsonEntity> selected = new ArrayList<JsonEntity>();
+        forEach(json, new JsonEntityHandler() {
+            @Override
+            public void handle(JsonEntity jsonEntity) {
+                selected.add(jsonEntity);
+            }
+        });
+        return selected;
+    }
+
+    private WrappedElement find(JsonEntity json) {
+        try {
+            if (!definite) {
+                return first(json.wrappedElement(), 0);
+            }
+            WrappedElement current = json.wrappedElement();
+            for (PathSegment segment : segments) {
+                current = child(current, segment);
+                if (current == null) {
+                    return null;
+                }
+            }
+            return current;
+        } catch (WrappedElementException e) {
+            throw new JsonEntityException(json, null, e.getMessage());
+        }
+    }
+
+    private WrappedElement primitive(JsonEntity json) {
+        WrappedElement element = find(json);
+        if (element == null) {
+            throw new JsonEntityException(json, null, "does not contain path "+path);
+        }
+        if (!element.isPrimitive()) {
+            throw new JsonEntityException(json, null, "path "+path+" is not a primitive");
+        }
+        return element;
+    }
+
+    private static WrappedElement child(WrappedElement node, PathSegment segment) throws WrappedElementException {
+        if (segment.kind() == PathSegment.Kind.PROPERTY) {
+            return node.isObject() ? node.get(segment.property()) : null;
+        }
+        if (!node.isArray()) {
+            return null;
+        }
+        return segment.index() < node.arraySize() ? node.getAtIndex(segment.index()) : null;
+    }
+
+    private WrappedElement first(WrappedElement<?> node, int segmentIndex) throws WrappedElementException {
+        if (segmentIndex == segments.length) {
+            return node;
+        }
+        PathSegment segment = segments[segmentIndex];
+        if (segment.isDefinite()) {
+            WrappedElement child = child(node, segment);
+            return child == null ? null : first(child, segmentIndex + 1);
+        }
+        if (node.isArray()) {
+            int endIndex = Math.min(node.arraySize(), segment.endIndex());
+            for (int index = segment.index(); index < endIndex; index++) {
+                WrappedElement found = first(node.getAtIndex(index), segmentIndex + 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (node.isObject() && segment.kind() == PathSegment.Kind.WILDCARD) {
+            for (String name : node.propertyNames()) {
+                WrappedElement found = first(node.get(name), segmentIndex + 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void select(WrappedElement<?> node, int segmentIndex, JsonEntityHandler handler) throws WrappedElementException {
+        if (segmentIndex == segments.length) {
+            handler.handle(new JsonEntity(null, null, -1, node));
+            return;
+        }
+        PathSegment segment = segments[segmentIndex];
+        if (segment.isDefinite()) {
+            WrappedElement child = child(node, segment);
+            if (child != null) {
+                select(child, segmentIndex + 1, handler);
+            }
+        } else if (node.isArray()) {
+            int endIndex = Math.min(node.arraySize(), segment.endIndex());
+            for (int index = segment.index(); index < endIndex; index++) {
+                select(node.getAtIndex(index), segmentIndex + 1, handler);
+            }
+        } else if (node.isObject() && segment.kind() == PathSegment.Kind.WILDCARD) {
+            for (String name : node.propertyNames()) {
+                select(node.get(name), segmentIndex + 1, handler);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+}
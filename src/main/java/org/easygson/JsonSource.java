@@ -0,0 +1,29 @@
+package org.easygson;
+
+/**
+ * Random access to the bytes of a UTF-8 encoded JSON document. Offsets are relative to the start of the
+ * document.
+ */
+interface JsonSource {
+
+    /**
+     * @return the number of bytes in the document
+     */
+    long length();
+
+    /**
+     * @param offset position of the byte within the document
+     * @return the byte at the offset
+     */
+    byte byteAt(long offset);
+
+    /**
+     * Copies a range of bytes from the document into the target array
+     * @param offset position of the first byte within the document
+     * @param target array to copy the bytes to
+     * @param targetOffset position within the target array to copy the first byte to
+     * @param length number of bytes to copy
+     */
+    void copy(long offset, byte[] target, int targetOffset, int length);
+
+}
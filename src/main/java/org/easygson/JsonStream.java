@@ -0,0 +1,95 @@
+package org.easygson;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * <p>Streaming front end for large JSON documents. Instead of parsing the entire document into memory, the
+ * document is pulled through a Gson JsonReader and only the subtrees selected by a path are turned into
+ * JsonEntity instances. Every selected subtree is handed to a JsonEntityHandler and can be discarded
+ * afterwards, so the memory usage is bounded by the largest selected subtree instead of the whole
+ * document.</p>
+ *
+ * <p>The path uses the notation of PathSegment, for example <code>$.records[*]</code> to select each
+ * element of the records array. If the source contains multiple top-level documents, such as JSON-lines,
+ * the path is applied to each of them.</p>
+ */
+public class JsonStream {
+
+    /** the compiled path that selects the subtrees to hand out */
+    private final List<PathSegment> segments;
+
+    /**
+     * Constructor that compiles the path which selects the subtrees to hand out
+     * @param path path expression, for example <code>$.records[*]</code>
+     */
+    public JsonStream(String path) {
+        this.segments = PathSegment.parse(path);
+    }
+
+    /**
+     * Streams through the source and hands every subtree that matches the path to the handler
+     * @param source the reader to pull the JSON from. The reader is not closed.
+     * @param handler receives the selected subtrees, one at a time
+     * @throws IOException if the source could not be read
+     */
+    public void forEach(Reader source, JsonEntityHandler handler) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true);
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            select(reader, 0, handler);
+        }
+    }
+
+    /**
+     * Convenience method for streaming through the source with a path that is used only once
+     * @param source the reader to pull the JSON from. The reader is not closed.
+     * @param path path expression, for example <code>$.records[*]</code>
+     * @param handler receives the selected subtrees, one at a time
+     * @throws IOException if the source could not be read
+     */
+    public static void forEach(Reader source, String path, JsonEntityHandler handler) throws IOException {
+        new JsonStream(path).forEach(source, handler);
+    }
+
+    private void select(JsonReader reader, int segmentIndex, JsonEntityHandler handler) throws IOException {
+        if (segmentIndex == segments.size()) {
+            handler.handle(new JsonEntity(JsonParser.parseReader(reader)));
+            return;
+        }
+        PathSegment segment = segments.get(segmentIndex);
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT
+                && (segment.kind() == PathSegment.Kind.PROPERTY || segment.kind() == PathSegment.Kind.WILDCARD)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (segment.matches(reader.nextName())) {
+                    select(reader, segmentIndex + 1, handler);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY && segment.kind() != PathSegment.Kind.PROPERTY) {
+            reader.beginArray();
+            int index = 0;
+            while (reader.hasNext()) {
+                if (segment.matches(index)) {
+                    select(reader, segmentIndex + 1, handler);
+                } else {
+                    reader.skipValue();
+                }
+                index++;
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+}
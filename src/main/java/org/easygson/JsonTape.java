@@ -0,0 +1,764 @@
+package org.easygson;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * <p>Compact, read-only representation of a parsed JSON document. Instead of a tree of Gson nodes, every
+ * node is stored as three consecutive longs in a single array (the tape):</p>
+ * <ul>
+ *     <li>the type of the node in the upper four bits and the offset of its first byte in the document</li>
+ *     <li>the offset directly after its last byte in the document</li>
+ *     <li>for arrays and objects, the number of children in the upper half and the number of the first child
+ *     node in the lower half</li>
+ * </ul>
+ * <p>The children of an array or object are stored as one consecutive block of nodes, so the child at a
+ * position can be found directly. The properties of an object take two nodes each: a string node holding
+ * the name, followed by the value node. The root is node 0. Values are not decoded while parsing; strings
+ * and numbers are read from the document bytes when they are requested, so the document itself has to be
+ * kept around.</p>
+ * <p>The tape is either built completely up front by parse(), which validates the entire document, or
+ * lazily by index(), which only determines the children of an array or object when they are first
+ * requested. Syntax errors in the lazy case are reported when the offending part is visited. Like any
+ * JsonEntity, a lazily built tape must not be used by multiple threads at the same time.</p>
+ */
+class JsonTape {
+
+    static final int OBJECT = 1;
+    static final int ARRAY = 2;
+    static final int STRING = 3;
+    /** string that contains escape sequences, which have to be resolved when decoding */
+    static final int ESCAPED_STRING = 4;
+    static final int NUMBER = 5;
+    static final int TRUE = 6;
+    static final int FALSE = 7;
+    static final int NULL = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** number of longs used per node */
+    private static final int STRIDE = 3;
+
+    private static final int TYPE_SHIFT = 60;
+
+    private static final long OFFSET_MASK = (1L << TYPE_SHIFT) - 1;
+
+    /** marks an array or object of which the children have not been determined yet */
+    private static final long UNEXPANDED = -1L;
+
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final JsonSource source;
+
+    private long[] tape;
+
+    /** number of nodes on the tape */
+    private int nodes;
+
+    /** nodes of which the array or object has not been closed yet, while parsing */
+    private long[] pending = new long[16 * STRIDE];
+
+    /** number of longs in use on the pending stack */
+    private int pendingSize;
+
+    /** read position while parsing */
+    private long position;
+
+    private JsonTape(JsonSource source, int estimatedNodes) {
+        this.source = source;
+        this.tape = new long[(int)Math.min(MAX_LENGTH, (long)Math.max(16, estimatedNodes) * STRIDE)];
+        this.nodes = 1; // reserved for the root
+    }
+
+    /**
+     * Parses the entire document in the source into a tape, validating it on the way
+     * @param source the UTF-8 encoded JSON document
+     * @return the tape of the document
+     * @throws JsonSyntaxException if the document is not valid JSON
+     */
+    static JsonTape parse(JsonSource source) {
+        JsonTape jsonTape = new JsonTape(source, (int)Math.min(Integer.MAX_VALUE, source.length() / 16));
+        jsonTape.value(true);
+        jsonTape.end();
+        jsonTape.root();
+        jsonTape.tape = Arrays.copyOf(jsonTape.tape, jsonTape.nodes * STRIDE);
+        return jsonTape;
+    }
+
+    /**
+     * Prepares a tape for the document in the source, without reading further than the start of the root.
+     * The children of arrays and objects are determined when they are first requested.
+     * @param source the UTF-8 encoded JSON document
+     * @return the tape of the document
+     * @throws JsonSyntaxException if the root is a primitive and not valid JSON
+     */
+    static JsonTape index(JsonSource source) {
+        JsonTape jsonTape = new JsonTape(source, 0);
+        jsonTape.skipWhitespace();
+        int next = jsonTape.peek();
+        if (next == '{' || next == '[') {
+            jsonTape.push(next == '{' ? OBJECT : ARRAY, jsonTape.position, -1, UNEXPANDED);
+        } else {
+            jsonTape.value(false);
+            jsonTape.end();
+        }
+        jsonTape.root();
+        return jsonTape;
+    }
+
+    private void root() {
+        pendingSize -= STRIDE;
+        System.arraycopy(pending, pendingSize, tape, 0, STRIDE);
+    }
+
+    private void end() {
+        skipWhitespace();
+        if (position < source.length()) {
+            throw syntaxError("unexpected content after the end of the document");
+        }
+    }
+
+    JsonSource source() {
+        return source;
+    }
+
+    int type(int node) {
+        return (int)(tape[node * STRIDE] >>> TYPE_SHIFT);
+    }
+
+    long start(int node) {
+        return tape[node * STRIDE] & OFFSET_MASK;
+    }
+
+    long end(int node) {
+        if (tape[node * STRIDE + 1] == -1) {
+            expand(node); // the end of a lazily indexed root is only known once it has been read
+        }
+        return tape[node * STRIDE + 1];
+    }
+
+    /**
+     * @param node an array or object node
+     * @return the number of elements in the array, or the number of properties in the object
+     */
+    int childCount(int node) {
+        return (int)(children(node) >>> 32);
+    }
+
+    /**
+     * @param node an array node
+     * @param index position of the element within the array
+     * @return the node number of the element
+     */
+    int element(int node, int index) {
+        return (int)children(node) + index;
+    }
+
+    /**
+     * @param node an object node
+     * @param index position of the property within the object
+     * @return the node number of the name of the property. The value is the node directly following it
+     */
+    int name(int node, int index) {
+        return (int)children(node) + index * 2;
+    }
+
+    /**
+     * @param node an object node
+     * @return the names of the properties of the object, in document order. A name that appears more than
+     * once is only included once.
+     */
+    Set<String> names(int node) {
+        int count = childCount(node);
+        Set<String> names = new LinkedHashSet<String>(count * 2);
+        for (int index = 0; index < count; index++) {
+            names.add(string(name(node, index)));
+        }
+        return names;
+    }
+
+    private long children(int node) {
+        long children = tape[node * STRIDE + 2];
+        if (children == UNEXPANDED) {
+            children = expand(node);
+        }
+        return children;
+    }
+
+    /**
+     * Looks up the value of a property in an object. Names without escape sequences are compared on the
+     * encoded bytes, so no String is decoded for the names that are passed. If the name occurs more than
+     * once, the last occurrence wins, just like it does for Gson.
+     * @param node the object node
+     * @param property name of the property
+     * @return the node number of the value, or -1 if the object does not have the property
+     */
+    int member(int node, String property) {
+        int index = memberIndex(node, property);
+        return index == -1 ? -1 : name(node, index) + 1;
+    }
+
+    /**
+     * Looks up the position of a property in an object, as described for member()
+     * @param node the object node
+     * @param property name of the property
+     * @return the position of the property within the object, or -1 if the object does not have the property
+     */
+    int memberIndex(int node, String property) {
+        byte[] name = property.getBytes(UTF_8);
+        for (int index = childCount(node) - 1; index >= 0; index--) {
+            if (nameEquals(name(node, index), property, name)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int key, String property, byte[] name) {
+        if (type(key) == ESCAPED_STRING) {
+            return string(key).equals(property);
+        }
+        long start = start(key) + 1;
+        if (end(key) - 1 - start != name.length) {
+            return false;
+        }
+        for (int index = 0; index < name.length; index++) {
+            if (source.byteAt(start + index) != name[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param node any node
+     * @return the JSON text of the node, exactly as it appears in the document
+     */
+    String text(int node) {
+        return decode(start(node), end(node));
+    }
+
+    /**
+     * @param node a string node
+     * @return the decoded value of the string, without quotes and with escape sequences resolved
+     */
+    String string(int node) {
+        String text = decode(start(node) + 1, end(node) - 1);
+        return type(node) == ESCAPED_STRING ? unescape(text) : text;
+    }
+
+    private String decode(long start, long end) {
+        byte[] bytes = new byte[(int)(end - start)];
+        source.copy(start, bytes, 0, bytes.length);
+        return new String(bytes, UTF_8);
+    }
+
+    private static String unescape(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int index = 0; index < text.length(); index++) {
+            char character = text.charAt(index);
+            if (character != '\\') {
+                builder.append(character);
+                continue;
+            }
+            char escaped = text.charAt(++index);
+            switch (escaped) {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    builder.append((char)Integer.parseInt(text.substring(index + 1, index + 5), 16));
+                    index += 4;
+                    break;
+                default: builder.append(escaped); // '"', '\\' and '/'
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Builds the Gson tree for the subtree of the node
+     * @param node the root node of the subtree
+     * @return the Gson equivalent of the subtree
+     */
+    JsonElement materialize(int node) {
+        switch (type(node)) {
+            case OBJECT:
+                JsonObject object = new JsonObject();
+                for (int index = 0; index < childCount(node); index++) {
+                    int key = name(node, index);
+                    object.add(string(key), materialize(key + 1));
+                }
+                return object;
+            case ARRAY:
+                JsonArray array = new JsonArray(childCount(node));
+                for (int index = 0; index < childCount(node); index++) {
+                    array.add(materialize(element(node, index)));
+                }
+                return array;
+            case STRING:
+            case ESCAPED_STRING:
+                return new JsonPrimitive(string(node));
+            case NUMBER:
+                return new JsonPrimitive(new TapeNumber(text(node)));
+            case TRUE:
+                return new JsonPrimitive(true);
+            case FALSE:
+                return new JsonPrimitive(false);
+            default:
+                return JsonNull.INSTANCE;
+        }
+    }
+
+    /**
+     * Computes the hash of the subtree of the node, without building the Gson tree first. Only primitives
+     * are materialized, so the hash is the same as the hashCode() of the Gson equivalent.
+     * @param node the root node of the subtree
+     * @return the hash of the subtree
+     */
+    int hash(int node) {
+        switch (type(node)) {
+            case OBJECT:
+                int hash = 0;
+                Set<String> names = new HashSet<String>();
+                for (int index = childCount(node) - 1; index >= 0; index--) {
+                    int key = name(node, index);
+                    String name = string(key);
+                    if (names.add(name)) { // the last occurrence of a name wins
+                        hash += name.hashCode() ^ hash(key + 1);
+                    }
+                }
+                return hash;
+            case ARRAY:
+                hash = 1;
+                for (int index = 0; index < childCount(node); index++) {
+                    hash = 31 * hash + hash(element(node, index));
+                }
+                return hash;
+            default:
+                return materialize(node).hashCode();
+        }
+    }
+
+    /**
+     * Compares the subtree of the node with a Gson tree, following the rules of Gson's equals()
+     * @param node the root node of the subtree
+     * @param json the Gson tree to compare with
+     * @return true if both represent the same JSON
+     */
+    boolean equals(int node, JsonElement json) {
+        switch (type(node)) {
+            case OBJECT:
+                if (!json.isJsonObject()) {
+                    return false;
+                }
+                JsonObject object = json.getAsJsonObject();
+                Set<String> names = new HashSet<String>();
+                for (int index = childCount(node) - 1; index >= 0; index--) {
+                    int key = name(node, index);
+                    String name = string(key);
+                    if (names.add(name)) {
+                        JsonElement value = object.get(name);
+                        if (value == null || !equals(key + 1, value)) {
+                            return false;
+                        }
+                    }
+                }
+                return names.size() == object.size();
+            case ARRAY:
+                if (!json.isJsonArray()) {
+                    return false;
+                }
+                JsonArray array = json.getAsJsonArray();
+                if (array.size() != childCount(node)) {
+                    return false;
+                }
+                for (int index = 0; index < array.size(); index++) {
+                    if (!equals(element(node, index), array.get(index))) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return materialize(node).equals(json);
+        }
+    }
+
+    /**
+     * Compares the subtree of the node with the subtree of a node on another tape, or on the same tape
+     * @param node the root node of the subtree
+     * @param other the tape holding the other node
+     * @param otherNode the root node of the other subtree
+     * @return true if both represent the same JSON
+     */
+    boolean equals(int node, JsonTape other, int otherNode) {
+        if (other == this && otherNode == node) {
+            return true;
+        }
+        int type = type(node);
+        int otherType = other.type(otherNode);
+        if (type == OBJECT || type == ARRAY || otherType == OBJECT || otherType == ARRAY) {
+            if (type != otherType) {
+                return false;
+            }
+        } else {
+            return materialize(node).equals(other.materialize(otherNode));
+        }
+        if (type == ARRAY) {
+            if (childCount(node) != other.childCount(otherNode)) {
+                return false;
+            }
+            for (int index = 0; index < childCount(node); index++) {
+                if (!equals(element(node, index), other, other.element(otherNode, index))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        Set<String> names = new HashSet<String>();
+        for (int index = childCount(node) - 1; index >= 0; index--) {
+            int key = name(node, index);
+            String name = string(key);
+            if (names.add(name)) {
+                int value = other.member(otherNode, name);
+                if (value == -1 || !equals(key + 1, other, value)) {
+                    return false;
+                }
+            }
+        }
+        return names.size() == other.names(otherNode).size();
+    }
+
+    /**
+     * Writes the subtree of the node to the writer, without building the Gson tree first
+     * @param node the root node of the subtree
+     * @param writer the JsonWriter to write to
+     * @throws IOException if the writer fails
+     */
+    void write(int node, JsonWriter writer) throws IOException {
+        switch (type(node)) {
+            case OBJECT:
+                writer.beginObject();
+                for (int index = 0; index < childCount(node); index++) {
+                    int key = name(node, index);
+                    writer.name(string(key));
+                    write(key + 1, writer);
+                }
+                writer.endObject();
+                break;
+            case ARRAY:
+                writer.beginArray();
+                for (int index = 0; index < childCount(node); index++) {
+                    write(element(node, index), writer);
+                }
+                writer.endArray();
+                break;
+            case STRING:
+            case ESCAPED_STRING:
+                writer.value(string(node));
+                break;
+            case NUMBER:
+                writer.jsonValue(text(node));
+                break;
+            case TRUE:
+                writer.value(true);
+                break;
+            case FALSE:
+                writer.value(false);
+                break;
+            default:
+                writer.nullValue();
+        }
+    }
+
+    /**
+     * Determines the children of an array or object that has been skipped so far
+     * @return the child count and first child of the node
+     */
+    private long expand(int node) {
+        position = start(node) + 1;
+        long children = children(type(node) == OBJECT, false);
+        tape[node * STRIDE + 1] = position;
+        tape[node * STRIDE + 2] = children;
+        if (node == 0) {
+            end();
+        }
+        return children;
+    }
+
+    /**
+     * Reads a value and pushes its node on the pending stack
+     * @param deep true if arrays and objects must be parsed entirely, false if they must be skipped
+     */
+    private void value(boolean deep) {
+        skipWhitespace();
+        switch (peek()) {
+            case '{': container(OBJECT, deep); break;
+            case '[': container(ARRAY, deep); break;
+            case '"': string(); break;
+            case 't': literal(TRUE, "true"); break;
+            case 'f': literal(FALSE, "false"); break;
+            case 'n': literal(NULL, "null"); break;
+            case '-': case '0': case '1': case '2': case '3': case '4':
+            case '5': case '6': case '7': case '8': case '9':
+                number();
+                break;
+            case -1: throw syntaxError("unexpected end of the document");
+            default: throw syntaxError("unexpected character '"+(char)peek()+"'");
+        }
+    }
+
+    private void container(int type, boolean deep) {
+        long start = position++;
+        if (deep) {
+            long children = children(type == OBJECT, true);
+            push(type, start, position, children);
+        } else {
+            skipContainer();
+            push(type, start, position, UNEXPANDED);
+        }
+    }
+
+    /**
+     * Reads the children of an array or object, up to and including the closing bracket, and stores them
+     * as one block on the tape
+     * @param object true for the properties of an object, false for the elements of an array
+     * @param deep true if nested arrays and objects must be parsed entirely, false if they must be skipped
+     * @return the child count and first child
+     */
+    private long children(boolean object, boolean deep) {
+        char close = object ? '}' : ']';
+        int mark = pendingSize;
+        int count = 0;
+        skipWhitespace();
+        if (peek() == close) {
+            position++;
+        } else {
+            while (true) {
+                if (object) {
+                    skipWhitespace();
+                    if (peek() != '"') {
+                        throw syntaxError("expected a property name");
+                    }
+                    string();
+                    skipWhitespace();
+                    expect(':');
+                }
+                value(deep);
+                count++;
+                skipWhitespace();
+                if (peek() == close) {
+                    position++;
+                    break;
+                }
+                expect(',');
+            }
+        }
+        int first = store(mark);
+        return ((long)count << 32) | first;
+    }
+
+    /**
+     * Moves the pending nodes from the mark onwards to the tape
+     * @return the node number of the first moved node
+     */
+    private int store(int mark) {
+        int count = (pendingSize - mark) / STRIDE;
+        if ((long)(nodes + count) * STRIDE > tape.length) {
+            long required = (long)(nodes + count) * STRIDE;
+            long capacity = Math.min(MAX_LENGTH, Math.max(required, (long)tape.length + (tape.length >> 1)));
+            if (capacity < required) {
+                throw new JsonSyntaxException("document has too many nodes for a compact representation");
+            }
+            tape = Arrays.copyOf(tape, (int)capacity);
+        }
+        int first = nodes;
+        System.arraycopy(pending, mark, tape, first * STRIDE, pendingSize - mark);
+        nodes += count;
+        pendingSize = mark;
+        return first;
+    }
+
+    private void push(int type, long start, long end, long children) {
+        if (pendingSize + STRIDE > pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingSize++] = ((long)type << TYPE_SHIFT) | start;
+        pending[pendingSize++] = end;
+        pending[pendingSize++] = children;
+    }
+
+    /**
+     * Moves the read position past the array or object, without validating its contents
+     */
+    private void skipContainer() {
+        int depth = 1;
+        while (depth > 0) {
+            int character = peek();
+            position++;
+            switch (character) {
+                case -1:
+                    throw syntaxError("unexpected end of the document");
+                case '"':
+                    skipString();
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    break;
+                default:
+            }
+        }
+    }
+
+    private void skipString() {
+        while (true) {
+            int character = peek();
+            position++;
+            if (character == '"') {
+                return;
+            }
+            if (character == '\\') {
+                position++;
+            } else if (character == -1) {
+                throw syntaxError("unterminated string");
+            }
+        }
+    }
+
+    private void string() {
+        long start = position++;
+        boolean escaped = false;
+        while (true) {
+            int character = peek();
+            if (character == -1) {
+                throw syntaxError("unterminated string");
+            }
+            position++;
+            if (character == '"') {
+                break;
+            }
+            if (character < 0x20) {
+                throw syntaxError("control character in string");
+            }
+            if (character == '\\') {
+                escaped = true;
+                escape();
+            }
+        }
+        push(escaped ? ESCAPED_STRING : STRING, start, position, 0);
+    }
+
+    private void escape() {
+        int character = peek();
+        position++;
+        switch (character) {
+            case '"': case '\\': case '/': case 'b': case 'f': case 'n': case 'r': case 't':
+                return;
+            case 'u':
+                for (int digit = 0; digit < 4; digit++) {
+                    if (Character.digit(peek(), 16) == -1) {
+                        throw syntaxError("invalid unicode escape sequence");
+                    }
+                    position++;
+                }
+                return;
+            default:
+                throw syntaxError("invalid escape sequence");
+        }
+    }
+
+    private void number() {
+        long start = position;
+        if (peek() == '-') {
+            position++;
+        }
+        if (peek() == '0') {
+            position++;
+            if (peek() >= '0' && peek() <= '9') {
+                throw syntaxError("leading zeros are not allowed");
+            }
+        } else {
+            digits();
+        }
+        if (peek() == '.') {
+            position++;
+            digits();
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            position++;
+            if (peek() == '+' || peek() == '-') {
+                position++;
+            }
+            digits();
+        }
+        push(NUMBER, start, position, 0);
+    }
+
+    private void digits() {
+        if (peek() < '0' || peek() > '9') {
+            throw syntaxError("expected a digit");
+        }
+        while (peek() >= '0' && peek() <= '9') {
+            position++;
+        }
+    }
+
+    private void literal(int type, String literal) {
+        long start = position;
+        for (int index = 0; index < literal.length(); index++) {
+            if (peek() != literal.charAt(index)) {
+                throw syntaxError("expected '"+literal+"'");
+            }
+            position++;
+        }
+        push(type, start, position, 0);
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw syntaxError("expected '"+expected+"'");
+        }
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (true) {
+            int character = peek();
+            if (character != ' ' && character != '\n' && character != '\r' && character != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * @return the byte at the read position, or -1 if the end of the document has been reached
+     */
+    private int peek() {
+        return position < source.length() ? source.byteAt(position) & 0xFF : -1;
+    }
+
+    private JsonSyntaxException syntaxError(String message) {
+        return new JsonSyntaxException(message+" at offset "+position);
+    }
+
+}
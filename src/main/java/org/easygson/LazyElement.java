@@ -0,0 +1,500 @@
+package org.easygson;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.DoubleConsumer;
+
+/**
+ * <p>Modifiable element backed by a node of a lazily built JsonTape. As long as the element is clean, it is
+ * read directly from the tape and its arrays and objects are handed out as lazy elements as well.</p>
+ *
+ * <p>When an array or object is modified, only that level is split up into a hybrid array or object of
+ * child elements; the children themselves remain backed by the tape. Only when raw() is called is the
+ * element materialized into a Gson tree, which from then on serves all calls. The arrays and objects that
+ * have been handed out before become part of that Gson tree, so modifications made through them remain
+ * visible.</p>
+ *
+ * <p>Splitting or materializing an element marks its lazy ancestors as dirty. When written, a clean element
+ * that is not dirty is copied verbatim from the document; a dirty element is written child by child, so that
+ * only the modified parts are encoded again.</p>
+ */
+class LazyElement extends WrappedElement<JsonElement> {
+
+    private final JsonTape tape;
+
+    private final int node;
+
+    private final LazyElement parent;
+
+    /** serves the calls: the tape node while clean, a hybrid once modified, the Gson element once materialized */
+    private WrappedElement<?> current;
+
+    /** true if one of the descendants has been materialized */
+    private boolean dirty;
+
+    /** the arrays and objects handed out, by position, as long as this element is clean */
+    private LazyElement[] children;
+
+    private LazyElement(JsonTape tape, int node, LazyElement parent) {
+        super(null);
+        this.tape = tape;
+        this.node = node;
+        this.parent = parent;
+        this.current = TapeElement.wrapVerbatim(tape, node);
+    }
+
+    /**
+     * Wraps the root of the tape
+     * @param tape a lazily built tape
+     * @return the lazy root element
+     */
+    static WrappedElement wrap(JsonTape tape) {
+        return wrapChild(tape, 0, null);
+    }
+
+    /**
+     * Only arrays and objects need to be lazy elements, since primitives cannot be modified in place
+     */
+    private static WrappedElement wrapChild(JsonTape tape, int node, LazyElement parent) {
+        int type = tape.type(node);
+        if (type == JsonTape.OBJECT || type == JsonTape.ARRAY) {
+            return new LazyElement(tape, node, parent);
+        }
+        return TapeElement.wrapVerbatim(tape, node);
+    }
+
+    private boolean isMaterialized() {
+        return json != null;
+    }
+
+    private boolean isClean() {
+        return current instanceof TapeElement;
+    }
+
+    private WrappedElement child(int position, int childNode) {
+        if (children == null) {
+            children = new LazyElement[tape.childCount(node)];
+        }
+        if (children[position] != null) {
+            return children[position];
+        }
+        WrappedElement child = wrapChild(tape, childNode, this);
+        if (child instanceof LazyElement) {
+            children[position] = (LazyElement)child;
+        }
+        return child;
+    }
+
+    private LazyElement cachedChild(int position) {
+        return children == null ? null : children[position];
+    }
+
+    /**
+     * Replaces the tape node by a hybrid of child elements, so that it can be modified, and marks the
+     * ancestors as dirty
+     */
+    private void split() {
+        if (!isClean()) {
+            return;
+        }
+        int count = tape.childCount(node);
+        if (isObject()) {
+            LinkedHashMap<String, WrappedElement> properties = new LinkedHashMap<String, WrappedElement>();
+            for (int index = 0; index < count; index++) {
+                int key = tape.name(node, index);
+                properties.put(tape.string(key), child(index, key + 1));
+            }
+            current = new HybridObject(properties);
+        } else {
+            ArrayList<WrappedElement> elements = new ArrayList<WrappedElement>(count);
+            for (int index = 0; index < count; index++) {
+                elements.add(child(index, tape.element(node, index)));
+            }
+            current = new HybridArray(elements);
+        }
+        children = null;
+        markAncestorsDirty();
+    }
+
+    /**
+     * Replaces the tape node or hybrid by a Gson tree, permanently, and marks the ancestors as dirty
+     */
+    private void materialize() {
+        if (isMaterialized()) {
+            return;
+        }
+        link();
+        markAncestorsDirty();
+    }
+
+    private void markAncestorsDirty() {
+        for (LazyElement ancestor = parent; ancestor != null && !ancestor.dirty; ancestor = ancestor.parent) {
+            ancestor.dirty = true;
+        }
+    }
+
+    /**
+     * Builds the Gson tree, in which the children handed out before are linked by materializing them
+     * @return the Gson tree of the element
+     */
+    private JsonElement link() {
+        if (!isMaterialized()) {
+            json = isClean() ? build(true) : current.raw();
+            current = WrapFactory.wrap(json);
+            children = null;
+        }
+        return json;
+    }
+
+    /**
+     * @param link true if the children handed out must be materialized and linked, false if they must be copied
+     */
+    private JsonElement build(boolean link) {
+        switch (tape.type(node)) {
+            case JsonTape.OBJECT:
+                JsonObject object = new JsonObject();
+                for (int index = 0; index < tape.childCount(node); index++) {
+                    int key = tape.name(node, index);
+                    object.add(tape.string(key), build(index, key + 1, link));
+                }
+                return object;
+            case JsonTape.ARRAY:
+                JsonArray array = new JsonArray(tape.childCount(node));
+                for (int index = 0; index < tape.childCount(node); index++) {
+                    array.add(build(index, tape.element(node, index), link));
+                }
+                return array;
+            default:
+                return tape.materialize(node);
+        }
+    }
+
+    private JsonElement build(int position, int childNode, boolean link) {
+        LazyElement child = cachedChild(position);
+        if (child == null) {
+            return tape.materialize(childNode);
+        }
+        return link ? child.link() : child.copy();
+    }
+
+    private JsonElement copy() {
+        return isClean() ? build(false) : current.deepCopy().raw();
+    }
+
+    @Override
+    public WrappedElement getAtIndex(int index) throws WrappedElementException {
+        if (!isClean() || !isArray()) {
+            return current.getAtIndex(index);
+        }
+        if (index < 0 || index >= tape.childCount(node)) {
+            throw new WrappedElementException("array element does not exist");
+        }
+        return child(index, tape.element(node, index));
+    }
+
+    @Override
+    public WrappedElement get(String property) throws WrappedElementException {
+        if (!isClean() || !isObject()) {
+            return current.get(property);
+        }
+        int position = tape.memberIndex(node, property);
+        return position == -1 ? null : child(position, tape.name(node, position) + 1);
+    }
+
+    @Override
+    public Set<String> propertyNames() throws WrappedElementException {
+        if (!isClean() || !isObject()) {
+            return current.propertyNames();
+        }
+        return tape.names(node);
+    }
+
+    @Override
+    public void remove(String property) throws WrappedElementException {
+        if (!isObject()) {
+            super.remove(property);
+        }
+        split();
+        current.remove(property);
+    }
+
+    @Override
+    public WrappedElement rebuildArray(int replaceIndex, WrappedElement replaceElement) throws WrappedElementException {
+        if (!isArray()) {
+            return super.rebuildArray(replaceIndex, replaceElement);
+        }
+        split();
+        current.rebuildArray(replaceIndex, replaceElement);
+        return this;
+    }
+
+    @Override
+    public void linkToObject(String property, WrappedElement jsonEntity) throws WrappedElementException {
+        if (!isObject()) {
+            super.linkToObject(property, jsonEntity);
+        }
+        split();
+        current.linkToObject(property, jsonEntity);
+    }
+
+    @Override
+    public void linkToArray(int index, WrappedElement jsonEntity) throws WrappedElementException {
+        if (!isArray()) {
+            super.linkToArray(index, jsonEntity);
+        }
+        split();
+        current.linkToArray(index, jsonEntity);
+    }
+
+    @Override
+    public int arraySize() throws WrappedElementException {
+        return current.arraySize();
+    }
+
+    @Override
+    public double[] toDoubleArray() throws WrappedElementException {
+        return current.toDoubleArray();
+    }
+
+    @Override
+    public int[] toIntArray() throws WrappedElementException {
+        return current.toIntArray();
+    }
+
+    @Override
+    public long[] toLongArray() throws WrappedElementException {
+        return current.toLongArray();
+    }
+
+    @Override
+    public String[] toStringArray() throws WrappedElementException {
+        return current.toStringArray();
+    }
+
+    @Override
+    public void forEachDouble(DoubleConsumer consumer) throws WrappedElementException {
+        current.forEachDouble(consumer);
+    }
+
+    @Override
+    public char asCharacter() throws WrappedElementException {
+        return current.asCharacter();
+    }
+
+    @Override
+    public boolean asBoolean() throws WrappedElementException {
+        return current.asBoolean();
+    }
+
+    @Override
+    public String asString() throws WrappedElementException {
+        return current.asString();
+    }
+
+    @Override
+    public double asDouble() throws WrappedElementException {
+        return current.asDouble();
+    }
+
+    @Override
+    public float asFloat() throws WrappedElementException {
+        return current.asFloat();
+    }
+
+    @Override
+    public short asShort() throws WrappedElementException {
+        return current.asShort();
+    }
+
+    @Override
+    public int asInt() throws WrappedElementException {
+        return current.asInt();
+    }
+
+    @Override
+    public long asLong() throws WrappedElementException {
+        return current.asLong();
+    }
+
+    @Override
+    public byte asByte() throws WrappedElementException {
+        return current.asByte();
+    }
+
+    @Override
+    public BigDecimal asBigDecimal() throws WrappedElementException {
+        return current.asBigDecimal();
+    }
+
+    @Override
+    public BigInteger asBigInteger() throws WrappedElementException {
+        return current.asBigInteger();
+    }
+
+    @Override
+    public OptionalInt asOptionalInt() {
+        return current.asOptionalInt();
+    }
+
+    @Override
+    public OptionalLong asOptionalLong() {
+        return current.asOptionalLong();
+    }
+
+    @Override
+    public OptionalDouble asOptionalDouble() {
+        return current.asOptionalDouble();
+    }
+
+    @Override
+    public Optional<String> asOptionalString() {
+        return current.asOptionalString();
+    }
+
+    @Override
+    public Optional<Boolean> asOptionalBoolean() {
+        return current.asOptionalBoolean();
+    }
+
+    @Override
+    public boolean isArray() {
+        return current.isArray();
+    }
+
+    @Override
+    public boolean isPrimitive() {
+        return current.isPrimitive();
+    }
+
+    @Override
+    public boolean isObject() {
+        return current.isObject();
+    }
+
+    @Override
+    public boolean isNull() {
+        return current.isNull();
+    }
+
+    @Override
+    public boolean isNumber() {
+        return current.isNumber();
+    }
+
+    @Override
+    public boolean isString() {
+        return current.isString();
+    }
+
+    @Override
+    public boolean isBoolean() {
+        return current.isBoolean();
+    }
+
+    @Override
+    public boolean fluentPlayer() {
+        return current.fluentPlayer();
+    }
+
+    /** children are split off and cached while the element is being read */
+    @Override
+    public boolean concurrentReads() {
+        return false;
+    }
+
+    /**
+     * Materializes the element permanently, since the caller may modify the returned Gson tree
+     * @return the Gson tree of the element
+     */
+    @Override
+    public JsonElement raw() {
+        materialize();
+        return json;
+    }
+
+    /**
+     * Copies the element into a temporary Gson tree unless it has been materialized already, so that
+     * reading it does not give up verbatim writing
+     * @return the Gson tree of the element, or a copy of it
+     */
+    @Override
+    JsonElement rawView() {
+        return isMaterialized() ? json : copy();
+    }
+
+    @Override
+    public WrappedElement deepCopy() {
+        return WrapFactory.wrap(copy());
+    }
+
+    /**
+     * As long as neither the element nor any of its descendants has been modified, the tape still holds the
+     * entire element, so it is hashed and compared on the tape
+     * @return the structural hash
+     */
+    @Override
+    public int structuralHash() {
+        return isClean() && !dirty ? current.structuralHash() : super.structuralHash();
+    }
+
+    @Override
+    public boolean structurallyEquals(WrappedElement other) {
+        return isClean() && !dirty ? current.structurallyEquals(other) : super.structurallyEquals(other);
+    }
+
+    @Override
+    boolean structurallyEquals(JsonElement json) {
+        return isClean() && !dirty ? current.structurallyEquals(json) : super.structurallyEquals(json);
+    }
+
+    @Override
+    public String toJson() {
+        return JsonElementWriter.toJson(this);
+    }
+
+    @Override
+    public void write(JsonWriter writer) throws IOException {
+        if (!isClean()) {
+            current.write(writer);
+        } else if (!dirty) {
+            SpanWriter.span(writer, tape, node);
+        } else if (isObject()) {
+            writer.beginObject();
+            for (int index = 0; index < tape.childCount(node); index++) {
+                int key = tape.name(node, index);
+                writer.name(tape.string(key));
+                write(index, key + 1, writer);
+            }
+            writer.endObject();
+        } else {
+            writer.beginArray();
+            for (int index = 0; index < tape.childCount(node); index++) {
+                write(index, tape.element(node, index), writer);
+            }
+            writer.endArray();
+        }
+    }
+
+    private void write(int position, int childNode, JsonWriter writer) throws IOException {
+        LazyElement child = cachedChild(position);
+        if (child != null) {
+            child.write(writer);
+        } else {
+            SpanWriter.span(writer, tape, childNode);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.easygson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * JsonSource over a memory-mapped file. Since a single mapping is limited to 2GB, the file is mapped in
+ * chunks of a fixed, power of two size. The bytes are paged in by the operating system when they are
+ * first read, and the pages are shared with every other process mapping the same file.
+ */
+class MappedFileSource implements JsonSource {
+
+    /** chunks of 1GB */
+    private static final int DEFAULT_CHUNK_BITS = 30;
+
+    private final MappedByteBuffer[] chunks;
+
+    private final int chunkBits;
+
+    private final long chunkMask;
+
+    private final long length;
+
+    private MappedFileSource(MappedByteBuffer[] chunks, int chunkBits, long length) {
+        this.chunks = chunks;
+        this.chunkBits = chunkBits;
+        this.chunkMask = (1L << chunkBits) - 1;
+        this.length = length;
+    }
+
+    /**
+     * Maps the file read-only into memory. The file is closed again once it has been mapped; the mapping
+     * stays valid until it is garbage collected.
+     * @param path the file to map
+     * @return the mapped file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    static MappedFileSource map(Path path) throws IOException {
+        return map(path, DEFAULT_CHUNK_BITS);
+    }
+
+    static MappedFileSource map(Path path, int chunkBits) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            long chunkSize = 1L << chunkBits;
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int)((length + chunkSize - 1) >>> chunkBits)];
+            for (int chunk = 0; chunk < chunks.length; chunk++) {
+                long offset = chunk * chunkSize;
+                chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(chunkSize, length - offset));
+            }
+            return new MappedFileSource(chunks, chunkBits, length);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public byte byteAt(long offset) {
+        return chunks[(int)(offset >>> chunkBits)].get((int)(offset & chunkMask));
+    }
+
+    @Override
+    public void copy(long offset, byte[] target, int targetOffset, int length) {
+        while (length > 0) {
+            MappedByteBuffer chunk = chunks[(int)(offset >>> chunkBits)];
+            int chunkOffset = (int)(offset & chunkMask);
+            int count = Math.min(length, chunk.limit() - chunkOffset);
+            ByteBuffer view = chunk.duplicate();
+            view.position(chunkOffset);
+            view.get(target, targetOffset, count);
+            offset += count;
+            targetOffset += count;
+            length -= count;
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.easygson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One step in a path expression, such as <code>$.records[*].id</code>. A step either selects a property
+ * of an object, a position in an array, a range of positions in an array (slice), or all the children of an
+ * object or array (wildcard).
+ */
+class PathSegment {
+
+    enum Kind { PROPERTY, INDEX, SLICE, WILDCARD }
+
+    private final Kind kind;
+
+    private final String property;
+
+    /** the selected position, or the first position selected by a slice or wildcard */
+    private final int index;
+
+    /** the position following the last position selected by a slice or wildcard */
+    private final int endIndex;
+
+    private PathSegment(Kind kind, String property, int index, int endIndex) {
+        this.kind = kind;
+        this.property = property;
+        this.index = index;
+        this.endIndex = endIndex;
+    }
+
+    static PathSegment property(String property) {
+        return new PathSegment(Kind.PROPERTY, property, -1, -1);
+    }
+
+    static PathSegment index(int index) {
+        return new PathSegment(Kind.INDEX, null, index, index + 1);
+    }
+
+    static PathSegment slice(int fromIndex, int toIndex) {
+        return new PathSegment(Kind.SLICE, null, fromIndex, toIndex);
+    }
+
+    static PathSegment wildcard() {
+        return new PathSegment(Kind.WILDCARD, null, 0, Integer.MAX_VALUE);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    String property() {
+        return property;
+    }
+
+    int index() {
+        return index;
+    }
+
+    int endIndex() {
+        return endIndex;
+    }
+
+    /**
+     * Determines whether the segment always selects at most a single element
+     * @return true if the segment selects at most a single element
+     */
+    boolean isDefinite() {
+        return kind == Kind.PROPERTY || kind == Kind.INDEX;
+    }
+
+    /**
+     * Determines whether the segment selects the property of an object
+     * @param name name of the property
+     * @return true if the property is selected
+     */
+    boolean matches(String name) {
+        return kind == Kind.WILDCARD || (kind == Kind.PROPERTY && property.equals(name));
+    }
+
+    /**
+     * Determines whether the segment selects the position within an array
+     * @param position position within the array
+     * @return true if the position is selected
+     */
+    boolean matches(int position) {
+        return kind == Kind.WILDCARD
+                || ((kind == Kind.INDEX || kind == Kind.SLICE) && position >= index && position < endIndex);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case PROPERTY: return "."+property;
+            case INDEX: return "["+index+"]";
+            case SLICE: return "["+index+":"+(endIndex == Integer.MAX_VALUE ? "" : endIndex)+"]";
+            default: return "[*]";
+        }
+    }
+
+    /**
+     * Parses a path expression into its segments. The supported notation is a subset of JSONPath; the
+     * path optionally starts with '$', followed by any number of steps in the form of <code>.name</code>,
+     * <code>['name']</code>, <code>[index]</code>, <code>[from:to]</code>, <code>[*]</code> or <code>.*</code>.
+     * Both bounds of a slice are optional; the from index is inclusive, the to index exclusive. Indexes
+     * must not be negative.
+     * @param path the path expression to parse
+     * @return the segments of the path, in order
+     */
+    static List<PathSegment> parse(String path) {
+        List<PathSegment> segments = new ArrayList<PathSegment>();
+        int position = path.startsWith("$") ? 1 : 0;
+        if (position == 0 && path.length() > 0 && path.charAt(0) != '[' && path.charAt(0) != '.') {
+            path = "." + path;
+        }
+        while (position < path.length()) {
+            char c = path.charAt(position);
+            if (c == '.') {
+                int end = position + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(position + 1, end);
+                if (name.length() == 0) {
+                    throw invalid(path, position);
+                }
+                segments.add(name.equals("*") ? wildcard() : property(name));
+                position = end;
+            } else if (c == '[') {
+                int end = path.indexOf(']', position);
+                if (end == -1) {
+                    throw invalid(path, position);
+                }
+                segments.add(parseBracket(path, position, path.substring(position + 1, end).trim()));
+                position = end + 1;
+            } else {
+                throw invalid(path, position);
+            }
+        }
+        return segments;
+    }
+
+    private static PathSegment parseBracket(String path, int position, String content) {
+        if (content.equals("*")) {
+            return wildcard();
+        }
+        if (content.length() >= 2 && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+                && content.charAt(content.length() - 1) == content.charAt(0)) {
+            return property(content.substring(1, content.length() - 1));
+        }
+        int colon = content.indexOf(':');
+        if (colon == -1) {
+            return index(parseIndex(path, position, content));
+        }
+        String from = content.substring(0, colon).trim();
+        String to = content.substring(colon + 1).trim();
+        return slice(from.length() == 0 ? 0 : parseIndex(path, position, from),
+                to.length() == 0 ? Integer.MAX_VALUE : parseIndex(path, position, to));
+    }
+
+    /**
+     * Indexes counting from the end of the array are not supported, so negative indexes are rejected here
+     * instead of failing once the path is evaluated
+     */
+    private static int parseIndex(String path, int position, String index) {
+        int value;
+        try {
+            value = Integer.parseInt(index);
+        } catch (NumberFormatException e) {
+            throw invalid(path, position);
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("invalid path '"+path+"' at position "+position+
+                    ", negative index "+value+" is not supported");
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(String path, int position) {
+        return new IllegalArgumentException("invalid path '"+path+"' at position "+position);
+    }
+
+}
@@ -0,0 +1,267 @@
+package org.easygson;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Persistent (immutable) version of a JSON tree. Every modification returns a new version and leaves the
+ * current version untouched. The new version shares all untouched subtrees with the previous one; only the
+ * objects and arrays on the path to the modified element are copied (path copying). Keeping many versions
+ * of a large document around therefore costs memory in the order of the depth of the modifications, not the
+ * size of the document.</p>
+ *
+ * <p>Elements are addressed by a path, using the notation of PathSegment, for example
+ * <code>$.settings.colors[2]</code>. Missing objects and arrays on the path are created.</p>
+ */
+public class PersistentJsonEntity {
+
+    /** root of this version. Its nodes are shared with other versions and must never be modified */
+    private final JsonElement root;
+
+    private PersistentJsonEntity(JsonElement root) {
+        this.root = root;
+    }
+
+    /**
+     * Creates the first version of a persistent tree. The JsonEntity is copied, so modifying it afterwards
+     * does not affect the persistent tree.
+     * @param json the JsonEntity to take a snapshot of
+     * @return the first version
+     */
+    public static PersistentJsonEntity of(JsonEntity json) {
+        return new PersistentJsonEntity(json.detachedCopy().raw());
+    }
+
+    /**
+     * Provides a starting point, in this case an empty object
+     * @return a version with an empty object
+     */
+    public static PersistentJsonEntity emptyObject() {
+        return new PersistentJsonEntity(new JsonObject());
+    }
+
+    /**
+     * Provides a starting point, in this case an empty array
+     * @return a version with an empty array
+     */
+    public static PersistentJsonEntity emptyArray() {
+        return new PersistentJsonEntity(new JsonArray());
+    }
+
+    /**
+     * Stores a copy of the JsonEntity at the path. Whatever already exists at that path is overwritten. If
+     * the path ends in an index equal to the array size, the element is appended to the array.
+     * @param path path of the element to store
+     * @param jsonEntity the JsonEntity to store
+     * @return the new version
+     */
+    public PersistentJsonEntity create(String path, JsonEntity jsonEntity) {
+        return update(path, jsonEntity.detachedCopy().raw());
+    }
+
+    /**
+     * Stores a String value at the path
+     * @param path path of the element to store
+     * @param value value to store
+     * @return the new version
+     */
+    public PersistentJsonEntity create(String path, String value) {
+        return update(path, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+    }
+
+    /**
+     * Stores a Number value at the path
+     * @param path path of the element to store
+     * @param value value to store
+     * @return the new version
+     */
+    public PersistentJsonEntity create(String path, Number value) {
+        return update(path, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+    }
+
+    /**
+     * Stores a Boolean value at the path
+     * @param path path of the element to store
+     * @param value value to store
+     * @return the new version
+     */
+    public PersistentJsonEntity create(String path, Boolean value) {
+        return update(path, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+    }
+
+    /**
+     * Stores a Character value at the path
+     * @param path path of the element to store
+     * @param value value to store
+     * @return the new version
+     */
+    public PersistentJsonEntity create(String path, Character value) {
+        return update(path, value == null ? JsonNull.INSTANCE : new JsonPrimitive(value));
+    }
+
+    /**
+     * Sets the element at the path to a null value
+     * @param path path of the element to nullify
+     * @return the new version
+     */
+    public PersistentJsonEntity nullify(String path) {
+        return update(path, JsonNull.INSTANCE);
+    }
+
+    /**
+     * Removes the element at the path. Array elements following the removed element will get an index at
+     * 1 lower. If the element does not exist, the current version is returned.
+     * @param path path of the element to remove
+     * @return the new version
+     */
+    public PersistentJsonEntity remove(String path) {
+        return update(path, null);
+    }
+
+    /**
+     * Returns the subtree at the path as a persistent tree of its own, sharing all its nodes with this version
+     * @param path path of the element to return
+     * @return the element at the path, or null if it does not exist
+     */
+    public PersistentJsonEntity get(String path) {
+        JsonElement current = root;
+        for (PathSegment segment : PathSegment.parse(path)) {
+            current = child(current, segment, path);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current == root ? this : new PersistentJsonEntity(current);
+    }
+
+    /**
+     * Returns a mutable copy of this version, which can be handled with the regular JsonEntity API
+     * @return copy of this version as a JsonEntity
+     */
+    public JsonEntity toJsonEntity() {
+        return new JsonEntity(root.deepCopy());
+    }
+
+    /**
+     * Returns the Gson JsonElement of this version. Its nodes are shared with other versions and must
+     * therefore not be modified.
+     * @return the Gson JsonElement
+     */
+    public JsonElement raw() {
+        return root;
+    }
+
+    private PersistentJsonEntity update(String path, JsonElement value) {
+        List<PathSegment> segments = PathSegment.parse(path);
+        if (segments.isEmpty()) {
+            if (value == null) {
+                throw new IllegalArgumentException("the root of '"+path+"' cannot be removed");
+            }
+            return new PersistentJsonEntity(value);
+        }
+        JsonElement updatedRoot = update(root, segments, 0, value, path);
+        return updatedRoot == root ? this : new PersistentJsonEntity(updatedRoot);
+    }
+
+    /**
+     * Returns a copy of node in which the element at the remaining path has been replaced. Only the node
+     * itself is copied; all its other children are shared. If nothing changes, the node itself is returned.
+     */
+    private static JsonElement update(JsonElement node, List<PathSegment> segments, int segmentIndex,
+                                      JsonElement value, String path) {
+        PathSegment segment = segments.get(segmentIndex);
+        boolean last = segmentIndex == segments.size() - 1;
+        if (node == null || node.isJsonNull()) {
+            if (value == null) {
+                return node;
+            }
+            node = segment.kind() == PathSegment.Kind.INDEX ? new JsonArray() : new JsonObject();
+        }
+        JsonElement child = child(node, segment, path);
+        JsonElement updatedChild = last ? value : update(child, segments, segmentIndex + 1, value, path);
+        if (updatedChild == child) {
+            return node;
+        }
+        if (segment.kind() == PathSegment.Kind.PROPERTY) {
+            JsonObject copy = copy(node.getAsJsonObject());
+            if (updatedChild == null) {
+                copy.remove(segment.property());
+            } else {
+                copy.add(segment.property(), updatedChild);
+            }
+            return copy;
+        }
+        JsonArray array = node.getAsJsonArray();
+        int index = segment.index();
+        if (index > array.size() || (index == array.size() && updatedChild == null)) {
+            throw new IllegalArgumentException("index "+index+" out of bounds in path '"+path+"'");
+        }
+        JsonArray copy = copy(array);
+        if (updatedChild == null) {
+            copy.remove(index);
+        } else if (index == copy.size()) {
+            copy.add(updatedChild);
+        } else {
+            copy.set(index, updatedChild);
+        }
+        return copy;
+    }
+
+    private static JsonElement child(JsonElement node, PathSegment segment, String path) {
+        switch (segment.kind()) {
+            case PROPERTY:
+                if (!node.isJsonObject()) {
+                    throw new IllegalArgumentException(segment+" in path '"+path+"' is not in an object");
+                }
+                return node.getAsJsonObject().get(segment.property());
+            case INDEX:
+                if (!node.isJsonArray()) {
+                    throw new IllegalArgumentException(segment+" in path '"+path+"' is not in an array");
+                }
+                JsonArray array = node.getAsJsonArray();
+                return segment.index() < array.size() ? array.get(segment.index()) : null;
+            default:
+                throw new IllegalArgumentException("wildcards and slices are not supported in path '"+path+"'");
+        }
+    }
+
+    private static JsonObject copy(JsonObject object) {
+        JsonObject copy = new JsonObject();
+        for (Map.Entry<String, JsonElement> property : object.entrySet()) {
+            copy.add(property.getKey(), property.getValue());
+        }
+        return copy;
+    }
+
+    private static JsonArray copy(JsonArray array) {
+        JsonArray copy = new JsonArray(array.size() + 1);
+        copy.addAll(array);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return root.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PersistentJsonEntity)) {
+            return false;
+        }
+        PersistentJsonEntity version = (PersistentJsonEntity)obj;
+        return root == version.root || root.equals(version.root);
+    }
+
+}
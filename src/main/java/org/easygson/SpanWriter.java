@@ -0,0 +1,37 @@
+package org.easygson;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * JsonWriter onto a UTF-8 output stream, which copies the original text of untouched subtrees byte for byte
+ * instead of decoding it first
+ */
+class SpanWriter extends JsonWriter {
+
+    private final Utf8Writer out;
+
+    SpanWriter(Utf8Writer out) {
+        super(out);
+        this.out = out;
+    }
+
+    /**
+     * Writes the text of a node verbatim as the next value. If the writer is a SpanWriter, the bytes are
+     * copied directly, otherwise the text is decoded and passed on as a raw JSON value.
+     * @param writer the JsonWriter to write to
+     * @param tape the tape holding the node
+     * @param node the node to write
+     * @throws IOException if the writer fails
+     */
+    static void span(JsonWriter writer, JsonTape tape, int node) throws IOException {
+        if (writer instanceof SpanWriter) {
+            writer.jsonValue(""); // writes the separators and the pending name, if any
+            ((SpanWriter)writer).out.copy(tape.source(), tape.start(node), tape.end(node));
+        } else {
+            writer.jsonValue(tape.text(node));
+        }
+    }
+
+}
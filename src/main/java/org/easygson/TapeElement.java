@@ -0,0 +1,385 @@
+package org.easygson;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.DoubleConsumer;
+
+import static org.easygson.WrappedNull.NULL;
+
+/**
+ * Read-only element backed by a node of a JsonTape. Gson nodes are only built when raw() is called, which
+ * builds a new Gson tree for the node every time. Any attempt to modify the element results in an exception.
+ */
+class TapeElement extends WrappedElement<JsonElement> {
+
+    private final JsonTape tape;
+
+    private final int node;
+
+    /** true if the element must be written exactly as it appears in the document */
+    private final boolean verbatim;
+
+    private TapeElement(JsonTape tape, int node, boolean verbatim) {
+        super(null);
+        this.tape = tape;
+        this.node = node;
+        this.verbatim = verbatim;
+    }
+
+    /**
+     * Wraps a node of the tape. Null values are wrapped as the shared null element.
+     * @param tape the tape holding the node
+     * @param node number of the node on the tape
+     * @return the wrapped node
+     */
+    static WrappedElement wrap(JsonTape tape, int node) {
+        return tape.type(node) == JsonTape.NULL ? NULL : new TapeElement(tape, node, false);
+    }
+
+    /**
+     * Wraps a node of the tape, which is written exactly as it appears in the document rather than
+     * encoded again. Null values are wrapped as the shared null element.
+     * @param tape the tape holding the node
+     * @param node number of the node on the tape
+     * @return the wrapped node
+     */
+    static WrappedElement wrapVerbatim(JsonTape tape, int node) {
+        return tape.type(node) == JsonTape.NULL ? NULL : new TapeElement(tape, node, true);
+    }
+
+    private int type() {
+        return tape.type(node);
+    }
+
+    @Override
+    public boolean isArray() {
+        return type() == JsonTape.ARRAY;
+    }
+
+    @Override
+    public boolean isObject() {
+        return type() == JsonTape.OBJECT;
+    }
+
+    @Override
+    public boolean isPrimitive() {
+        int type = type();
+        return type != JsonTape.ARRAY && type != JsonTape.OBJECT && type != JsonTape.NULL;
+    }
+
+    @Override
+    public boolean isNull() {
+        return type() == JsonTape.NULL;
+    }
+
+    @Override
+    public boolean isNumber() {
+        return type() == JsonTape.NUMBER;
+    }
+
+    @Override
+    public boolean isString() {
+        return type() == JsonTape.STRING || type() == JsonTape.ESCAPED_STRING;
+    }
+
+    @Override
+    public boolean isBoolean() {
+        return type() == JsonTape.TRUE || type() == JsonTape.FALSE;
+    }
+
+    @Override
+    public boolean fluentPlayer() {
+        return isArray() || isObject();
+    }
+
+    /** the tape may be indexed further while it is being read */
+    @Override
+    public boolean concurrentReads() {
+        return false;
+    }
+
+    @Override
+    public int arraySize() throws WrappedElementException {
+        if (!isArray()) {
+            return super.arraySize();
+        }
+        return tape.childCount(node);
+    }
+
+    @Override
+    public WrappedElement getAtIndex(int index) throws WrappedElementException {
+        if (!isArray()) {
+            return super.getAtIndex(index);
+        }
+        if (index < 0 || index >= tape.childCount(node)) {
+            throw new WrappedElementException("array element does not exist");
+        }
+        return wrap(tape, child(index));
+    }
+
+    @Override
+    public WrappedElement get(String property) throws WrappedElementException {
+        if (!isObject()) {
+            return super.get(property);
+        }
+        int value = tape.member(node, property);
+        return value == -1 ? null : wrap(tape, value);
+    }
+
+    @Override
+    public Set<String> propertyNames() throws WrappedElementException {
+        if (!isObject()) {
+            return super.propertyNames();
+        }
+        return tape.names(node);
+    }
+
+    private int child(int index) {
+        return tape.element(node, index);
+    }
+
+    @Override
+    public void remove(String property) throws WrappedElementException {
+        throw readOnly();
+    }
+
+    @Override
+    public WrappedElement rebuildArray(int replaceIndex, WrappedElement replaceElement) throws WrappedElementException {
+        throw readOnly();
+    }
+
+    @Override
+    public void linkToObject(String property, WrappedElement jsonEntity) throws WrappedElementException {
+        throw readOnly();
+    }
+
+    @Override
+    public void linkToArray(int index, WrappedElement jsonEntity) throws WrappedElementException {
+        throw readOnly();
+    }
+
+    private WrappedElementException readOnly() {
+        return new WrappedElementException("is read-only, therefore it cannot be modified");
+    }
+
+    @Override
+    public double[] toDoubleArray() throws WrappedElementException {
+        double[] values = new double[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asDouble();
+        }
+        return values;
+    }
+
+    @Override
+    public int[] toIntArray() throws WrappedElementException {
+        int[] values = new int[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asInt();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] toLongArray() throws WrappedElementException {
+        long[] values = new long[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asLong();
+        }
+        return values;
+    }
+
+    @Override
+    public String[] toStringArray() throws WrappedElementException {
+        String[] values = new String[arraySize()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).asString();
+        }
+        return values;
+    }
+
+    @Override
+    public void forEachDouble(DoubleConsumer consumer) throws WrappedElementException {
+        int size = arraySize();
+        for (int index = 0; index < size; index++) {
+            consumer.accept(primitiveAt(index).asDouble());
+        }
+    }
+
+    private TapeElement primitiveAt(int index) throws WrappedElementException {
+        TapeElement element = new TapeElement(tape, child(index), verbatim);
+        if (!element.isPrimitive()) {
+            throw new WrappedElementException("element at index "+index+" is not a primitive");
+        }
+        return element;
+    }
+
+    /**
+     * Builds a Gson primitive for the value, for the conversions that do not have a direct implementation
+     */
+    private WrappedPrimitive primitive() throws WrappedElementException {
+        if (!isPrimitive()) {
+            throw new WrappedElementException("is not a primitive");
+        }
+        return materializePrimitive();
+    }
+
+    private WrappedPrimitive materializePrimitive() {
+        return new WrappedPrimitive((JsonPrimitive)tape.materialize(node));
+    }
+
+    @Override
+    public String asString() throws WrappedElementException {
+        return isString() ? tape.string(node) : primitive().asString();
+    }
+
+    @Override
+    public double asDouble() throws WrappedElementException {
+        return isNumber() ? Double.parseDouble(tape.text(node)) : primitive().asDouble();
+    }
+
+    @Override
+    public int asInt() throws WrappedElementException {
+        if (isNumber()) {
+            try {
+                return Integer.parseInt(tape.text(node));
+            } catch (NumberFormatException e) {
+                // Not a plain int, leave the conversion to Gson
+            }
+        }
+        return primitive().asInt();
+    }
+
+    @Override
+    public long asLong() throws WrappedElementException {
+        if (isNumber()) {
+            try {
+                return Long.parseLong(tape.text(node));
+            } catch (NumberFormatException e) {
+                // Not a plain long, leave the conversion to Gson
+            }
+        }
+        return primitive().asLong();
+    }
+
+    @Override
+    public boolean asBoolean() throws WrappedElementException {
+        return isBoolean() ? type() == JsonTape.TRUE : primitive().asBoolean();
+    }
+
+    @Override
+    public char asCharacter() throws WrappedElementException {
+        return primitive().asCharacter();
+    }
+
+    @Override
+    public float asFloat() throws WrappedElementException {
+        return primitive().asFloat();
+    }
+
+    @Override
+    public short asShort() throws WrappedElementException {
+        return primitive().asShort();
+    }
+
+    @Override
+    public byte asByte() throws WrappedElementException {
+        return primitive().asByte();
+    }
+
+    @Override
+    public BigDecimal asBigDecimal() throws WrappedElementException {
+        return primitive().asBigDecimal();
+    }
+
+    @Override
+    public BigInteger asBigInteger() throws WrappedElementException {
+        return primitive().asBigInteger();
+    }
+
+    @Override
+    public OptionalInt asOptionalInt() {
+        return isPrimitive() ? materializePrimitive().asOptionalInt() : OptionalInt.empty();
+    }
+
+    @Override
+    public OptionalLong asOptionalLong() {
+        return isPrimitive() ? materializePrimitive().asOptionalLong() : OptionalLong.empty();
+    }
+
+    @Override
+    public OptionalDouble asOptionalDouble() {
+        return isPrimitive() ? materializePrimitive().asOptionalDouble() : OptionalDouble.empty();
+    }
+
+    @Override
+    public Optional<String> asOptionalString() {
+        if (isString()) {
+            return Optional.of(tape.string(node));
+        }
+        return isPrimitive() ? materializePrimitive().asOptionalString() : Optional.<String>empty();
+    }
+
+    @Override
+    public Optional<Boolean> asOptionalBoolean() {
+        return isPrimitive() ? materializePrimitive().asOptionalBoolean() : Optional.<Boolean>empty();
+    }
+
+    @Override
+    public JsonElement raw() {
+        return tape.materialize(node);
+    }
+
+    /**
+     * Builds a regular, modifiable Gson tree for the node
+     * @return the modifiable copy
+     */
+    @Override
+    public WrappedElement deepCopy() {
+        return WrapFactory.wrap(raw());
+    }
+
+    @Override
+    public int structuralHash() {
+        return tape.hash(node);
+    }
+
+    @Override
+    public boolean structurallyEquals(WrappedElement other) {
+        if (other instanceof TapeElement) {
+            TapeElement tapeElement = (TapeElement)other;
+            return tape.equals(node, tapeElement.tape, tapeElement.node);
+        }
+        return other.structurallyEquals(this);
+    }
+
+    @Override
+    boolean structurallyEquals(JsonElement json) {
+        return tape.equals(node, json);
+    }
+
+    @Override
+    public String toJson() {
+        return JsonElementWriter.toJson(this);
+    }
+
+    @Override
+    public void write(JsonWriter writer) throws IOException {
+        if (verbatim) {
+            SpanWriter.span(writer, tape, node);
+            return;
+        }
+        tape.write(node, writer);
+    }
+
+}
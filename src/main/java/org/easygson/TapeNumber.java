@@ -0,0 +1,62 @@
+package org.easygson;
+
+import java.math.BigDecimal;
+
+/**
+ * Number of which the value is only parsed from its JSON text when it is requested. The text is kept as it
+ * appears in the document, so the number is written exactly as it was read. Used for the numbers of a
+ * JsonTape instead of Gson's own lazily parsed number, which is not part of its public API.
+ */
+class TapeNumber extends Number {
+
+    /** the number as it appears in the document, which the tape has already validated */
+    private final String text;
+
+    TapeNumber(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public int intValue() {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return (int)longValue();
+        }
+    }
+
+    @Override
+    public long longValue() {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return new BigDecimal(text).longValue();
+        }
+    }
+
+    @Override
+    public float floatValue() {
+        return Float.parseFloat(text);
+    }
+
+    @Override
+    public double doubleValue() {
+        return Double.parseDouble(text);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TapeNumber && text.equals(((TapeNumber)other).text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
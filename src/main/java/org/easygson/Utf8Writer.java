@@ -0,0 +1,117 @@
+package org.easygson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Buffered Writer that encodes characters in UTF-8 onto an output stream. Besides characters, bytes that
+ * are already UTF-8 encoded can be copied onto the stream directly.
+ */
+class Utf8Writer extends Writer {
+
+    private final OutputStream outputStream;
+
+    private final byte[] buffer;
+
+    private int count;
+
+    /** high surrogate waiting for its low surrogate, or 0 if there is none */
+    private char highSurrogate;
+
+    Utf8Writer(OutputStream outputStream, int bufferSize) {
+        this.outputStream = outputStream;
+        this.buffer = new byte[Math.max(bufferSize, 4)];
+    }
+
+    @Override
+    public void write(int character) throws IOException {
+        encode((char)character);
+    }
+
+    @Override
+    public void write(char[] characters, int offset, int length) throws IOException {
+        for (int index = offset; index < offset + length; index++) {
+            encode(characters[index]);
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+        for (int index = offset; index < offset + length; index++) {
+            encode(string.charAt(index));
+        }
+    }
+
+    /**
+     * Copies UTF-8 encoded bytes from the source onto the stream, without decoding them
+     * @param source the source to copy from
+     * @param start offset of the first byte to copy
+     * @param end offset directly after the last byte to copy
+     * @throws IOException if the output stream fails
+     */
+    void copy(JsonSource source, long start, long end) throws IOException {
+        while (start < end) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            int length = (int)Math.min(end - start, buffer.length - count);
+            source.copy(start, buffer, count, length);
+            count += length;
+            start += length;
+        }
+    }
+
+    private void encode(char character) throws IOException {
+        if (count + 4 > buffer.length) {
+            flushBuffer();
+        }
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(character)) {
+                int codePoint = Character.toCodePoint(high, character);
+                buffer[count++] = (byte)(0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte)(0x80 | (codePoint & 0x3F));
+                return;
+            }
+            buffer[count++] = '?'; // unpaired surrogate, replaced like the JDK encoder does
+            encode(character);
+            return;
+        }
+        if (character < 0x80) {
+            buffer[count++] = (byte)character;
+        } else if (character < 0x800) {
+            buffer[count++] = (byte)(0xC0 | (character >> 6));
+            buffer[count++] = (byte)(0x80 | (character & 0x3F));
+        } else if (Character.isHighSurrogate(character)) {
+            highSurrogate = character;
+        } else if (Character.isLowSurrogate(character)) {
+            buffer[count++] = '?';
+        } else {
+            buffer[count++] = (byte)(0xE0 | (character >> 12));
+            buffer[count++] = (byte)(0x80 | ((character >> 6) & 0x3F));
+            buffer[count++] = (byte)(0x80 | (character & 0x3F));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, count);
+        count = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        outputStream.close();
+    }
+
+}
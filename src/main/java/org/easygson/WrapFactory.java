@@ -32,7 +32,7 @@ public class WrapFactory {
     }
 
     public static WrappedElement createPrimitive(JsonElement json) {
-        return new WrappedPrimitive((JsonPrimitive)json);
+        return WrappedPrimitive.valueOf((JsonPrimitive)json);
     }
 
     public static WrappedElement createObject(JsonElement json) {
@@ -3,8 +3,7 @@ package org.easygson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.DoubleConsumer;
 
 public class WrappedArray extends WrappedElement<JsonArray> {
 
@@ -23,20 +22,12 @@ public class WrappedArray extends WrappedElement<JsonArray> {
 
     @Override
     public WrappedArray rebuildArray(int replaceIndex, WrappedElement replaceElement) {
-        JsonArray sourceArray = json;
-        JsonArray targetArray = new JsonArray();
-        int currentIndex = 0;
-        for (JsonElement sourceArrayElement : sourceArray) {
-            if (replaceIndex == currentIndex) {
-                if (replaceElement != null) {
-                    targetArray.add(replaceElement.raw());
-                }
-            } else {
-                targetArray.add(sourceArrayElement);
-            }
-            currentIndex++;
+        if (replaceElement == null) {
+            json.remove(replaceIndex);
+        } else {
+            json.set(replaceIndex, replaceElement.raw());
         }
-        return new WrappedArray(targetArray);
+        return this;
     }
 
     @Override
@@ -59,16 +50,54 @@ public class WrappedArray extends WrappedElement<JsonArray> {
     }
 
     @Override
-    public List<WrappedElement> list() throws WrappedElementException {
-//        if (json == JsonNull.INSTANCE) {
-//            return Collections.emptyList();
-//        }
-        JsonArray array = ((JsonArray)json);
-        List<WrappedElement> wrappedElements = new ArrayList<WrappedElement>(array.size());
-        for (JsonElement anArray : array) {
-            wrappedElements.add(WrapFactory.wrap(anArray));
+    public double[] toDoubleArray() throws WrappedElementException {
+        double[] values = new double[json.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).getAsDouble();
         }
-        return wrappedElements;
+        return values;
+    }
+
+    @Override
+    public int[] toIntArray() throws WrappedElementException {
+        int[] values = new int[json.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).getAsInt();
+        }
+        return values;
+    }
+
+    @Override
+    public long[] toLongArray() throws WrappedElementException {
+        long[] values = new long[json.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).getAsLong();
+        }
+        return values;
+    }
+
+    @Override
+    public String[] toStringArray() throws WrappedElementException {
+        String[] values = new String[json.size()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = primitiveAt(index).getAsString();
+        }
+        return values;
+    }
+
+    @Override
+    public void forEachDouble(DoubleConsumer consumer) throws WrappedElementException {
+        for (int index = 0; index < json.size(); index++) {
+            consumer.accept(primitiveAt(index).getAsDouble());
+        }
+    }
+
+    private JsonElement primitiveAt(int index) throws WrappedElementException {
+        JsonElement element = json.get(index);
+        if (!element.isJsonPrimitive()) {
+            throw new WrappedElementException("element at index "+index+" is not a primitive");
+        }
+        return element;
     }
 
     @Override
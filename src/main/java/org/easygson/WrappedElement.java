@@ -1,11 +1,19 @@
 package org.easygson;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Collections;
-import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.DoubleConsumer;
 
 import static org.easygson.WrappedNull.NULL;
 
@@ -26,6 +34,30 @@ public abstract class WrappedElement<T extends JsonElement> {
         return new WrappedObject();
     }
 
+    public static WrappedElement createArray(double[] values) {
+        JsonArray array = new JsonArray(values.length);
+        for (double value : values) {
+            array.add(new JsonPrimitive(value));
+        }
+        return new WrappedArray(array);
+    }
+
+    public static WrappedElement createArray(int[] values) {
+        JsonArray array = new JsonArray(values.length);
+        for (int value : values) {
+            array.add(new JsonPrimitive(value));
+        }
+        return new WrappedArray(array);
+    }
+
+    public static WrappedElement createArray(long[] values) {
+        JsonArray array = new JsonArray(values.length);
+        for (long value : values) {
+            array.add(new JsonPrimitive(value));
+        }
+        return new WrappedArray(array);
+    }
+
     public WrappedElement(T json) {
         this.json = json;
     }
@@ -38,6 +70,14 @@ public abstract class WrappedElement<T extends JsonElement> {
         throw new WrappedElementException("is not an array, therefore does not have an array size");
     }
 
+    /**
+     * Replaces the element at the index position, or removes it if replaceElement is null. Implementations
+     * may either modify the array in place and return themselves, or return a new instance
+     * @param replaceIndex position of the element to replace or remove
+     * @param replaceElement the element to replace it with, or null to remove it
+     * @return the element holding the resulting array
+     * @throws WrappedElementException if the current element is not an array
+     */
     public WrappedElement rebuildArray(int replaceIndex, WrappedElement replaceElement) throws WrappedElementException {
         throw new WrappedElementException("is not an array, therefore the array can not be rebuild");
     }
@@ -58,8 +98,34 @@ public abstract class WrappedElement<T extends JsonElement> {
         throw new WrappedElementException("is not an array, there the element cannot be stored at the index location");
     }
 
-    public List<WrappedElement> list() throws WrappedElementException {
-        return Collections.<WrappedElement> emptyList();
+    /**
+     * Returns the names of the properties of the object, in their order within the object. The returned set
+     * is a copy, so the object may be modified while iterating over it.
+     * @return the property names
+     * @throws WrappedElementException if the current element is not an object
+     */
+    public Set<String> propertyNames() throws WrappedElementException {
+        throw new WrappedElementException("is not an object, therefore it has no property names");
+    }
+
+    public double[] toDoubleArray() throws WrappedElementException {
+        throw new WrappedElementException("is not an array, therefore it cannot be converted to a double array");
+    }
+
+    public int[] toIntArray() throws WrappedElementException {
+        throw new WrappedElementException("is not an array, therefore it cannot be converted to an int array");
+    }
+
+    public long[] toLongArray() throws WrappedElementException {
+        throw new WrappedElementException("is not an array, therefore it cannot be converted to a long array");
+    }
+
+    public String[] toStringArray() throws WrappedElementException {
+        throw new WrappedElementException("is not an array, therefore it cannot be converted to a String array");
+    }
+
+    public void forEachDouble(DoubleConsumer consumer) throws WrappedElementException {
+        throw new WrappedElementException("is not an array, therefore its doubles cannot be iterated");
     }
 
     public char asCharacter() throws WrappedElementException {
@@ -90,6 +156,10 @@ public abstract class WrappedElement<T extends JsonElement> {
         throw new WrappedElementException("is not a primitive");
     }
 
+    public long asLong() throws WrappedElementException {
+        throw new WrappedElementException("is not a primitive");
+    }
+
     public byte asByte() throws WrappedElementException {
         throw new WrappedElementException("is not a primitive");
     }
@@ -102,6 +172,26 @@ public abstract class WrappedElement<T extends JsonElement> {
         throw new WrappedElementException("is not a primitive");
     }
 
+    public OptionalInt asOptionalInt() {
+        return OptionalInt.empty();
+    }
+
+    public OptionalLong asOptionalLong() {
+        return OptionalLong.empty();
+    }
+
+    public OptionalDouble asOptionalDouble() {
+        return OptionalDouble.empty();
+    }
+
+    public Optional<String> asOptionalString() {
+        return Optional.empty();
+    }
+
+    public Optional<Boolean> asOptionalBoolean() {
+        return Optional.empty();
+    }
+
     public boolean isArray() {
         return false;
     }
@@ -118,20 +208,41 @@ public abstract class WrappedElement<T extends JsonElement> {
         return false;
     }
 
+    public boolean isNumber() {
+        return false;
+    }
+
+    public boolean isString() {
+        return false;
+    }
+
+    public boolean isBoolean() {
+        return false;
+    }
+
     public boolean fluentPlayer() {
         return false;
     }
 
+    /**
+     * Tells whether the element can be read by several threads at the same time. Gson trees are not modified
+     * by reading them, so this is the case unless a subclass builds up state while it is being read.
+     * @return true if the element can be read concurrently
+     */
+    public boolean concurrentReads() {
+        return true;
+    }
+
     public static WrappedElement createPrimitiveBoolean(Boolean value) {
-        return value == null ? NULL : new WrappedPrimitive(value);
+        return value == null ? NULL : WrappedPrimitive.valueOf(value.booleanValue());
     }
 
     public static WrappedElement createPrimitiveNumber(Number value) {
-        return value == null ? NULL : new WrappedPrimitive(value);
+        return value == null ? NULL : WrappedPrimitive.valueOf(value);
     }
 
     public static WrappedElement createPrimitiveString(String value) {
-        return value == null ? NULL : new WrappedPrimitive(value);
+        return value == null ? NULL : WrappedPrimitive.valueOf(value);
     }
 
     public static WrappedElement createPrimitiveCharacter(Character value) {
@@ -142,4 +253,65 @@ public abstract class WrappedElement<T extends JsonElement> {
         return this.json;
     }
 
+    /**
+     * Returns the Gson tree of this element for reading only. Contrary to raw(), this never changes the way
+     * the element is represented, so the tree may be a temporary copy and must not be modified.
+     * @return the Gson tree of the element, or a copy of it
+     */
+    JsonElement rawView() {
+        return raw();
+    }
+
+    /**
+     * Copies the JSON tree of this element node by node. Primitives are immutable and are therefore shared
+     * between the original and the copy.
+     * @return the copied element
+     */
+    public WrappedElement deepCopy() {
+        return WrapFactory.wrap(raw().deepCopy());
+    }
+
+    /**
+     * Returns the hash of the JSON tree of this element, which is the same as the hashCode() of its Gson tree
+     * @return the structural hash
+     */
+    public int structuralHash() {
+        return rawView().hashCode();
+    }
+
+    /**
+     * Compares the JSON tree of this element with that of another element
+     * @param other the element to compare with
+     * @return true if both represent the same JSON
+     */
+    public boolean structurallyEquals(WrappedElement other) {
+        return other.structurallyEquals(rawView());
+    }
+
+    /**
+     * Compares the JSON tree of this element with a Gson tree
+     * @param json the Gson tree to compare with
+     * @return true if both represent the same JSON
+     */
+    boolean structurallyEquals(JsonElement json) {
+        return rawView().equals(json);
+    }
+
+    /**
+     * Returns the compact JSON string representation of this element
+     * @return JSON string representation
+     */
+    public String toJson() {
+        return raw().toString();
+    }
+
+    /**
+     * Writes the JSON tree of this element to the writer, node by node
+     * @param writer the JsonWriter to write to
+     * @throws IOException if the writer fails
+     */
+    public void write(JsonWriter writer) throws IOException {
+        JsonElementWriter.write(raw(), writer);
+    }
+
 }
@@ -1,6 +1,9 @@
 package org.easygson;
 
 /**
+ * Signals that an operation is not supported by the type of a WrappedElement. The exception is used for
+ * control flow only; JsonEntity translates it into a JsonEntityException, which does report the stack
+ * trace. Capturing a stack trace here would therefore be wasted effort.
  * @author Robert Bor
  */
 public class WrappedElementException extends Exception {
@@ -8,4 +11,10 @@ public class WrappedElementException extends Exception {
     public WrappedElementException(String msg) {
         super(msg);
     }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
 }
@@ -15,4 +15,9 @@ public class WrappedNull extends WrappedElement<JsonNull> {
         return true;
     }
 
+    @Override
+    public WrappedElement deepCopy() {
+        return this;
+    }
+
 }
@@ -3,6 +3,9 @@ package org.easygson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class WrappedObject extends WrappedElement<JsonObject> {
 
     public WrappedObject() {
@@ -34,6 +37,11 @@ public class WrappedObject extends WrappedElement<JsonObject> {
         return element != null ? WrapFactory.wrap(element) : null;
     }
 
+    @Override
+    public Set<String> propertyNames() throws WrappedElementException {
+        return new LinkedHashSet<String>(json.keySet());
+    }
+
     @Override
     public boolean fluentPlayer() {
         return true;
@@ -4,9 +4,35 @@ import com.google.gson.JsonPrimitive;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 
 public class WrappedPrimitive extends WrappedElement<JsonPrimitive> {
 
+    public static final WrappedPrimitive TRUE = new WrappedPrimitive(Boolean.TRUE);
+
+    public static final WrappedPrimitive FALSE = new WrappedPrimitive(Boolean.FALSE);
+
+    public static final WrappedPrimitive EMPTY_STRING = new WrappedPrimitive("");
+
+    /** range of the integers for which a shared instance exists */
+    private static final int SMALL_MIN = -128;
+
+    private static final int SMALL_MAX = 1023;
+
+    private static final WrappedPrimitive[] SMALL_INTS = new WrappedPrimitive[SMALL_MAX - SMALL_MIN + 1];
+
+    private static final WrappedPrimitive[] SMALL_LONGS = new WrappedPrimitive[SMALL_MAX - SMALL_MIN + 1];
+
+    static {
+        for (int value = SMALL_MIN; value <= SMALL_MAX; value++) {
+            SMALL_INTS[value - SMALL_MIN] = new WrappedPrimitive(Integer.valueOf(value));
+            SMALL_LONGS[value - SMALL_MIN] = new WrappedPrimitive(Long.valueOf(value));
+        }
+    }
+
     public WrappedPrimitive(Boolean value) {
         super(new JsonPrimitive(value));
     }
@@ -27,6 +53,73 @@ public class WrappedPrimitive extends WrappedElement<JsonPrimitive> {
         super(json);
     }
 
+    /**
+     * Returns the shared instance for true or false. Like WrappedNull.NULL, the shared instances are never
+     * modified and their Gson primitives may be part of any number of trees.
+     * @param value the value to wrap
+     * @return the shared instance
+     */
+    public static WrappedPrimitive valueOf(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Returns the shared instance for small Integer and Long values and a new instance for all other numbers
+     * @param value the value to wrap
+     * @return the shared or a new instance
+     */
+    public static WrappedPrimitive valueOf(Number value) {
+        WrappedPrimitive shared = shared(value);
+        return shared != null ? shared : new WrappedPrimitive(value);
+    }
+
+    /**
+     * Returns the shared instance for the empty String and a new instance for all other Strings
+     * @param value the value to wrap
+     * @return the shared or a new instance
+     */
+    public static WrappedPrimitive valueOf(String value) {
+        return value.isEmpty() ? EMPTY_STRING : new WrappedPrimitive(value);
+    }
+
+    /**
+     * Returns the shared instance if the Gson primitive holds a boolean, the empty String or a small Integer
+     * or Long value, and otherwise wraps the Gson primitive itself. Numbers parsed from text are held as
+     * lazily parsed numbers, which are always wrapped, since recognizing them would mean parsing them.
+     * @param json the Gson primitive to wrap
+     * @return the shared or a new instance
+     */
+    public static WrappedPrimitive valueOf(JsonPrimitive json) {
+        WrappedPrimitive shared = shared(json);
+        return shared != null ? shared : new WrappedPrimitive(json);
+    }
+
+    /**
+     * @param json the Gson primitive to look up
+     * @return the shared instance with the same value, or null if there is none
+     */
+    static WrappedPrimitive shared(JsonPrimitive json) {
+        if (json.isBoolean()) {
+            return json.getAsBoolean() ? TRUE : FALSE;
+        }
+        if (json.isNumber()) {
+            return shared(json.getAsNumber());
+        }
+        return json.getAsString().isEmpty() ? EMPTY_STRING : null;
+    }
+
+    private static WrappedPrimitive shared(Number value) {
+        if (value instanceof Integer) {
+            int small = value.intValue();
+            return small >= SMALL_MIN && small <= SMALL_MAX ? SMALL_INTS[small - SMALL_MIN] : null;
+        }
+        if (value instanceof Long) {
+            long small = value.longValue();
+            return small >= SMALL_MIN && small <= SMALL_MAX ? SMALL_LONGS[(int)small - SMALL_MIN] : null;
+        }
+        return null;
+    }
+
     @Override
     public char asCharacter() throws WrappedElementException {
         return json.getAsCharacter();
@@ -62,6 +155,11 @@ public class WrappedPrimitive extends WrappedElement<JsonPrimitive> {
         return json.getAsInt();
     }
 
+    @Override
+    public long asLong() throws WrappedElementException {
+        return json.getAsLong();
+    }
+
     @Override
     public byte asByte() throws WrappedElementException {
         return json.getAsByte();
@@ -77,9 +175,125 @@ public class WrappedPrimitive extends WrappedElement<JsonPrimitive> {
         return json.getAsBigInteger();
     }
 
+    @Override
+    public OptionalInt asOptionalInt() {
+        if (json.isNumber()) {
+            BigDecimal value = exactNumber();
+            try {
+                return value == null ? OptionalInt.empty() : OptionalInt.of(value.intValueExact());
+            } catch (ArithmeticException e) {
+                return OptionalInt.empty();
+            }
+        }
+        if (json.isString()) {
+            try {
+                return OptionalInt.of(Integer.parseInt(json.getAsString()));
+            } catch (NumberFormatException e) {
+                return OptionalInt.empty();
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    @Override
+    public OptionalLong asOptionalLong() {
+        if (json.isNumber()) {
+            BigDecimal value = exactNumber();
+            try {
+                return value == null ? OptionalLong.empty() : OptionalLong.of(value.longValueExact());
+            } catch (ArithmeticException e) {
+                return OptionalLong.empty();
+            }
+        }
+        if (json.isString()) {
+            try {
+                return OptionalLong.of(Long.parseLong(json.getAsString()));
+            } catch (NumberFormatException e) {
+                return OptionalLong.empty();
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Gson truncates fractions and wraps around on overflow when converting to an int or long, so the
+     * optional conversions work on the exact value of the number instead
+     * @return the exact value of the number, or null if it is not finite
+     */
+    private BigDecimal exactNumber() {
+        Number number = json.getAsNumber();
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        try {
+            return new BigDecimal(number.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public OptionalDouble asOptionalDouble() {
+        if (json.isNumber()) {
+            return OptionalDouble.of(json.getAsDouble());
+        }
+        if (json.isString()) {
+            try {
+                return OptionalDouble.of(Double.parseDouble(json.getAsString()));
+            } catch (NumberFormatException e) {
+                return OptionalDouble.empty();
+            }
+        }
+        return OptionalDouble.empty();
+    }
+
+    @Override
+    public Optional<String> asOptionalString() {
+        return Optional.of(json.getAsString());
+    }
+
+    @Override
+    public Optional<Boolean> asOptionalBoolean() {
+        if (json.isBoolean()) {
+            return Optional.of(json.getAsBoolean());
+        }
+        if (json.isString()) {
+            String value = json.getAsString();
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Optional.of(Boolean.valueOf(value));
+            }
+        }
+        return Optional.empty();
+    }
+
     @Override
     public boolean isPrimitive() {
         return true;
     }
 
+    @Override
+    public boolean isNumber() {
+        return json.isNumber();
+    }
+
+    @Override
+    public boolean isString() {
+        return json.isString();
+    }
+
+    @Override
+    public boolean isBoolean() {
+        return json.isBoolean();
+    }
+
+    /**
+     * The Gson primitive is immutable and is shared with the copy, but the wrapper is not, since wrappers
+     * handed out by a cursor or an EntityScope are repositioned on other primitives afterwards
+     * @return a new wrapper around the same Gson primitive
+     */
+    @Override
+    public WrappedElement deepCopy() {
+        return new WrappedPrimitive(json);
+    }
+
 }
@@ -0,0 +1,109 @@
+package org.easygson;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+public class ConcurrentJsonEntityTest {
+
+    @Test
+    public void readAndWriteProperty() {
+        ConcurrentJsonEntity session = new JsonEntity("{ cart : [ \"apple\" ], user : { name : \"A\" } }")
+                .concurrentCopy();
+        session.write("cart", cart -> cart.create("pear"));
+        assertEquals(2, (int)session.read("cart", JsonEntity::arraySize));
+        assertEquals("A", session.read("user", user -> user.asString("name")));
+        assertNull(session.read("missing", json -> json));
+    }
+
+    @Test
+    public void copyIsUncoupled() {
+        JsonEntity json = new JsonEntity("{ a : 1 }");
+        ConcurrentJsonEntity session = json.concurrentCopy();
+        json.create("a", 2);
+        assertEquals(1, (int)session.read("a", JsonEntity::asInt));
+    }
+
+    @Test
+    public void putAndRemove() {
+        ConcurrentJsonEntity session = ConcurrentJsonEntity.emptyObject();
+        session.put("a", new JsonEntity("[ 1 ]")).put("b", JsonEntity.emptyObject());
+        session.remove("b");
+        assertEquals("{\"a\":[1]}", session.toString());
+        assertEquals("{\"a\":[1]}", session.snapshot().toString());
+    }
+
+    @Test
+    public void writeToPrimitiveIsRejected() {
+        ConcurrentJsonEntity session = new JsonEntity("{ a : 1 }").concurrentCopy();
+        try {
+            session.write("a", json -> json.create("b", 1));
+            fail("primitive cannot be modified in place");
+        } catch (JsonEntityException err) {
+            assertTrue(err.getMessage().contains("is not an array or object"));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void upgradeFromReadIsRejected() {
+        final ConcurrentJsonEntity session = new JsonEntity("{ a : [ 1 ], b : { c : 2 } }").concurrentCopy();
+        assertRejected(() -> session.read("a", json -> session.put("d", JsonEntity.emptyObject())));
+        assertRejected(() -> session.write("a", json -> session.remove("b")));
+        assertRejected(() -> session.readAll(json -> { session.writeAll(all -> all.remove("a")); return null; }));
+        assertRejected(() -> session.read("a", json -> { session.write("a", array -> array.create(3)); return null; }));
+        assertRejected(() -> session.readAll(json -> { session.write("b", object -> object.create("e", 3)); return null; }));
+        assertEquals("{\"a\":[1],\"b\":{\"c\":2}}", session.toString());
+    }
+
+    @Test(timeout = 5000)
+    public void nestedWritesWithoutUpgradeAreAllowed() {
+        final ConcurrentJsonEntity session = new JsonEntity("{ a : [ 1 ] }").concurrentCopy();
+        session.writeAll(json -> {
+            session.put("b", new JsonEntity("[ 2 ]"));
+            session.write("a", array -> array.create(3));
+        });
+        session.write("a", array -> assertEquals(2, (int)session.read("a", JsonEntity::arraySize)));
+        assertEquals("{\"a\":[1,3],\"b\":[2]}", session.toString());
+    }
+
+    private void assertRejected(Runnable call) {
+        try {
+            call.run();
+            fail("upgrading a read lock should have been rejected");
+        } catch (IllegalStateException err) {
+            assertTrue(err.getMessage().startsWith("cannot"));
+        }
+    }
+
+    @Test
+    public void concurrentWritersToDifferentProperties() throws InterruptedException {
+        final ConcurrentJsonEntity session = ConcurrentJsonEntity.emptyObject();
+        final int threads = 8;
+        final int increments = 1000;
+        for (int thread = 0; thread < threads; thread++) {
+            session.put("counter" + thread, new JsonEntity("{ value : 0 }"));
+        }
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int thread = 0; thread < threads; thread++) {
+            final String property = "counter" + (thread % 4);
+            Thread worker = new Thread(() -> {
+                for (int increment = 0; increment < increments; increment++) {
+                    session.write(property, counter -> counter.create("value", counter.asInt("value") + 1));
+                    session.read(property, counter -> counter.asInt("value"));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (int thread = 0; thread < 4; thread++) {
+            assertEquals(2 * increments, (int)session.read("counter" + thread, counter -> counter.asInt("value")));
+        }
+    }
+
+}
@@ -2,10 +2,30 @@ package org.easygson;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
 
 import static junit.framework.Assert.*;
 import static org.easygson.JsonEntity.emptyArray;
@@ -27,6 +47,27 @@ public class JsonEntityTest {
         assertEquals("gamma", json.asString(2));
     }
 
+    @Test
+    public void parseReader() {
+        JsonEntity json = JsonEntity.parse(new StringReader("{x:\"hello world\"}"));
+        assertEquals("hello world", json.asString("x"));
+    }
+
+    @Test
+    public void parseInputStream() throws UnsupportedEncodingException {
+        JsonEntity json = JsonEntity.parse(
+                new ByteArrayInputStream("{x:\"h\u00e9llo\"}".getBytes("UTF-16")), Charset.forName("UTF-16"));
+        assertEquals("h\u00e9llo", json.asString("x"));
+    }
+
+    @Test
+    public void parseByteBuffer() throws UnsupportedEncodingException {
+        ByteBuffer buffer = ByteBuffer.wrap("[\"alpha\",\"b\u00e9ta\"]".getBytes("UTF-8"));
+        JsonEntity json = JsonEntity.parse(buffer);
+        assertEquals("b\u00e9ta", json.asString(1));
+        assertEquals(0, buffer.position());
+    }
+
     @Test
     public void createArray() {
         JsonEntity array = emptyArray()
@@ -123,6 +164,82 @@ public class JsonEntityTest {
         }
     }
     
+    @Test
+    public void iteratorRemove() {
+        JsonEntity array = emptyArray()
+                .create("el1")
+                .create("el2")
+                .create("el3");
+        Iterator<JsonEntity> iterator = array.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().asString().equals("el2")) {
+                iterator.remove();
+            }
+        }
+        assertEquals(2, array.arraySize());
+        assertEquals("el1", array.asString(0));
+        assertEquals("el3", array.asString(1));
+    }
+
+    @Test
+    public void cursorReusesEntity() {
+        JsonEntity array = new JsonEntity("[ { a : 1 }, [ 2 ], 3, null ]");
+        JsonEntity previous = null;
+        int index = 0;
+        for (JsonEntity arrayElement : array.cursor()) {
+            if (previous != null) {
+                assertSame(previous, arrayElement);
+            }
+            assertEquals(array.get(index), arrayElement);
+            assertEquals("["+index+"]", arrayElement.name());
+            previous = arrayElement;
+            index++;
+        }
+        assertEquals(4, index);
+    }
+
+    @Test
+    public void cursorElementsCanBeCopied() {
+        JsonEntity array = new JsonEntity("[ 1, 2, 3 ]");
+        JsonEntity kept = emptyArray();
+        for (JsonEntity arrayElement : array.cursor()) {
+            kept.create(arrayElement.detachedCopy());
+        }
+        assertEquals("[1,2,3]", kept.toString());
+        List<JsonEntity> copies = new ArrayList<JsonEntity>();
+        for (JsonEntity arrayElement : array.cursor()) {
+            copies.add(arrayElement.detachedCopy());
+        }
+        assertEquals(1, copies.get(0).asInt());
+        assertEquals(2, copies.get(1).asInt());
+        assertEquals(3, copies.get(2).asInt());
+    }
+
+    @Test
+    public void cursorNonArray() {
+        assertFalse(emptyObject().cursor().iterator().hasNext());
+    }
+
+    @Test
+    public void nonArraysIterateAsEmpty() {
+        JsonEntity json = new JsonEntity("{ p : 42, n : null }");
+        for (JsonEntity nonArray : new JsonEntity[] { json, json.get("p"), json.get("n"), json.getSafely("x") }) {
+            assertFalse(nonArray.iterator().hasNext());
+            assertFalse(nonArray.cursor().iterator().hasNext());
+            assertEquals(0, nonArray.stream().count());
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextOnNonArray() {
+        new JsonEntity("42").iterator().next();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void cursorNextOnNonArray() {
+        new JsonEntity("42").cursor().iterator().next();
+    }
+
     @Test
     public void iterableNull() {
         JsonEntity unknown = emptyObject().getSafely("unknown");
@@ -134,6 +251,29 @@ public class JsonEntityTest {
         assertFalse(emptyObject().iterator().hasNext());
     }
 
+    @Test
+    public void cachedChildren() {
+        JsonEntity json = new JsonEntity("{ a : { b : [ 1, 2 ] } }").cacheChildren();
+        assertSame(json.get("a"), json.get("a"));
+        assertSame(json.get("a").get("b").get(1), json.get("a").get("b").get(1));
+        assertNotSame(new JsonEntity(json.raw()).get("a"), new JsonEntity(json.raw()).get("a"));
+    }
+
+    @Test
+    public void cachedChildrenInvalidatedOnModification() {
+        JsonEntity json = new JsonEntity("{ a : { x : 1 }, b : [ 1, 2, 3 ] }").cacheChildren();
+        JsonEntity a = json.get("a");
+        json.create("a", emptyObject().create("x", 2));
+        assertNotSame(a, json.get("a"));
+        assertEquals(2, json.get("a").asInt("x"));
+        JsonEntity array = json.get("b");
+        assertEquals(1, array.get(0).asInt());
+        array.remove(0);
+        assertEquals(2, array.get(0).asInt());
+        json.remove("b");
+        assertNull(json.get("b"));
+    }
+
     @Test(expected = JsonEntityException.class)
     public void arrayElementDoesNotExist() {
         JsonEntity array = emptyArray();
@@ -266,6 +406,27 @@ public class JsonEntityTest {
         assertEquals(42, array.asInt("int"));
     }
 
+    @Test
+    public void asLongFromArray() {
+        JsonEntity array = new JsonEntity("[ 9007199254740993 ]");
+        assertEquals(9007199254740993L, array.asLong(0));
+    }
+
+    @Test
+    public void asLongFromObject() {
+        JsonEntity array = emptyObject();
+        array.create("long", Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, array.asLong("long"));
+    }
+
+    @Test
+    public void optLong() {
+        JsonEntity json = new JsonEntity("{ id : 1700000000000, s : \"12\", o : {} }");
+        assertEquals(1700000000000L, json.optLong("id", -1));
+        assertEquals(12L, json.get("s").asOptionalLong().getAsLong());
+        assertEquals(-1L, json.optLong("o", -1));
+    }
+
     @Test
     public void asByteFromArray() {
         JsonEntity array = emptyArray();
@@ -280,6 +441,125 @@ public class JsonEntityTest {
         assertEquals(42, array.asByte("byte"));
     }
 
+    @Test
+    public void tryGet() {
+        JsonEntity json = new JsonEntity("{ a : [ 1, 2 ] }");
+        assertNull(json.tryGet("b"));
+        assertNull(json.tryGet(0));
+        assertNull(json.get("a").tryGet("b"));
+        assertNull(json.get("a").tryGet(2));
+        assertEquals(2, json.get("a").tryGet(1).asInt());
+    }
+
+    @Test
+    public void optionalPrimitives() {
+        JsonEntity json = new JsonEntity("{ i : 42, d : 1.5, s : \"17\", b : true, t : \"FALSE\", o : {} }");
+        assertEquals(42, json.get("i").asOptionalInt().getAsInt());
+        assertEquals(17, json.get("s").asOptionalInt().getAsInt());
+        assertFalse(json.get("o").asOptionalInt().isPresent());
+        assertFalse(json.get("b").asOptionalInt().isPresent());
+        assertEquals(1.5, json.get("d").asOptionalDouble().getAsDouble());
+        assertEquals("42", json.get("i").asOptionalString().get());
+        assertFalse(json.get("o").asOptionalString().isPresent());
+        assertTrue(json.get("b").asOptionalBoolean().get());
+        assertFalse(json.get("t").asOptionalBoolean().get());
+        assertFalse(json.get("s").asOptionalBoolean().isPresent());
+    }
+
+    @Test
+    public void optionalIntegersAreExact() {
+        JsonEntity json = new JsonEntity("{ f : 3.7, w : 3.0, e : 1e20, l : 3000000000, n : -2147483648, m : -9223372036854775809 }");
+        assertFalse(json.get("f").asOptionalInt().isPresent());
+        assertFalse(json.get("f").asOptionalLong().isPresent());
+        assertEquals(3, json.get("w").asOptionalInt().getAsInt());
+        assertFalse(json.get("e").asOptionalInt().isPresent());
+        assertFalse(json.get("e").asOptionalLong().isPresent());
+        assertFalse(json.get("l").asOptionalInt().isPresent());
+        assertEquals(3000000000L, json.get("l").asOptionalLong().getAsLong());
+        assertEquals(Integer.MIN_VALUE, json.get("n").asOptionalInt().getAsInt());
+        assertFalse(json.get("m").asOptionalLong().isPresent());
+        assertEquals(-1, json.optInt("f", -1));
+        assertEquals(-1L, json.optLong("e", -1L));
+        assertEquals(7, json.get("l").asIntOrDefault(7));
+        assertFalse(new JsonEntity(new JsonPrimitive(Double.NaN)).asOptionalLong().isPresent());
+        assertEquals(5, new JsonEntity(new JsonPrimitive(5L)).asOptionalInt().getAsInt());
+        JsonEntity compact = JsonEntity.parseCompact("[3.7,1e20]".getBytes(Charset.forName("UTF-8")));
+        assertFalse(compact.get(0).asOptionalInt().isPresent());
+        assertFalse(compact.get(1).asOptionalLong().isPresent());
+    }
+
+    @Test
+    public void optPrimitives() {
+        JsonEntity json = new JsonEntity("{ i : 42, d : 1.5, s : \"x\", b : true, a : [ 3 ] }");
+        assertEquals(42, json.optInt("i", -1));
+        assertEquals(-1, json.optInt("s", -1));
+        assertEquals(-1, json.optInt("missing", -1));
+        assertEquals(-1, json.get("a").optInt("i", -1));
+        assertEquals(3, json.get("a").optInt(0, -1));
+        assertEquals(-1, json.get("a").optInt(1, -1));
+        assertEquals(1.5, json.optDouble("d", 0));
+        assertEquals("x", json.optString("s", null));
+        assertEquals("none", json.optString("a", "none"));
+        assertTrue(json.optBoolean("b", false));
+        assertTrue(json.optBoolean("i", true));
+        assertEquals(7, json.get("s").asIntOrDefault(7));
+    }
+
+    @Test
+    public void primitiveTypes() {
+        JsonEntity json = new JsonEntity("[ 1, \"one\", true, null, {} ]");
+        assertTrue(json.get(0).isNumber());
+        assertTrue(json.get(1).isString());
+        assertTrue(json.get(2).isBoolean());
+        assertFalse(json.get(3).isNumber());
+        assertFalse(json.get(4).isString());
+    }
+
+    @Test
+    public void wrappedElementExceptionHasNoStackTrace() {
+        assertEquals(0, new WrappedElementException("is not an array").getStackTrace().length);
+    }
+
+    @Test
+    public void toPrimitiveArrays() {
+        JsonEntity array = new JsonEntity("[ 1, 2.5, \"3\" ]");
+        assertTrue(Arrays.equals(new double[] { 1, 2.5, 3 }, array.toDoubleArray()));
+        assertTrue(Arrays.equals(new String[] { "1", "2.5", "3" }, array.toStringArray()));
+        JsonEntity integers = new JsonEntity("[ 1, 9007199254740993 ]");
+        assertTrue(Arrays.equals(new long[] { 1, 9007199254740993L }, integers.toLongArray()));
+        assertTrue(Arrays.equals(new int[] { 4, 5 }, new JsonEntity("[ 4, 5 ]").toIntArray()));
+    }
+
+    @Test
+    public void forEachDouble() {
+        final double[] sum = new double[1];
+        new JsonEntity("[ 1, 2.5, 3 ]").forEachDouble(value -> sum[0] += value);
+        assertEquals(6.5, sum[0]);
+    }
+
+    @Test(expected = JsonEntityException.class)
+    public void toPrimitiveArrayWithNonPrimitive() {
+        new JsonEntity("[ 1, {} ]").toIntArray();
+    }
+
+    @Test(expected = JsonEntityException.class)
+    public void toPrimitiveArrayOnObject() {
+        emptyObject().toIntArray();
+    }
+
+    @Test
+    public void createPrimitiveArrays() {
+        JsonEntity json = emptyObject()
+                .createArray("doubles", new double[] { 1.5, 2.5 }).parent()
+                .createArray("ints", new int[] { 1, 2 }).parent()
+                .createArray("longs", new long[] { 9007199254740993L }).parent();
+        assertEquals(2.5, json.get("doubles").asDouble(1));
+        assertEquals(2, json.get("ints").asInt(1));
+        assertEquals("9007199254740993", json.get("longs").asString(0));
+        JsonEntity nested = emptyArray().createArray(new int[] { 7 }).parent();
+        assertEquals(7, nested.get(0).asInt(0));
+    }
+
     @Test
     public void overwritePrimitive() {
         JsonEntity object = emptyObject();
@@ -323,6 +603,28 @@ public class JsonEntityTest {
         assertEquals("gamma", array.asString(1));
     }
 
+    @Test
+    public void overwritingIndexElementKeepsArrayInstance() {
+        JsonEntity array = emptyArray().create("alpha").create("beta");
+        JsonElement raw = array.raw();
+        array.create(1, "gamma");
+        assertSame(raw, array.raw());
+        assertEquals("gamma", array.asString(1));
+    }
+
+    @Test
+    public void removeFromNestedArrayKeepsParentInstances() {
+        JsonEntity root = new JsonEntity("{ a : [ [ 1, 2, 3 ] ] }");
+        JsonElement outer = root.get("a").raw();
+        JsonEntity inner = root.get("a").get(0);
+        JsonElement innerRaw = inner.raw();
+        inner.remove(0);
+        assertSame(outer, root.get("a").raw());
+        assertSame(innerRaw, root.get("a").get(0).raw());
+        assertEquals(2, root.get("a").get(0).arraySize());
+        assertEquals(2, root.get("a").get(0).asInt(0));
+    }
+
     @Test
     public void changeObject() {
         JsonEntity root = emptyObject()
@@ -356,6 +658,42 @@ public class JsonEntityTest {
         assertEquals(28, parent.get(0).asInt("y"));
     }
 
+    @Test
+    public void writeToWriter() throws IOException {
+        JsonEntity json = new JsonEntity("{ a : [ 1, \"two\", null, true ], b : { c : 1.5 } }");
+        StringWriter writer = new StringWriter();
+        json.writeTo(writer);
+        assertEquals(json.toString(), writer.toString());
+    }
+
+    @Test
+    public void writeToAppendable() throws IOException {
+        JsonEntity json = new JsonEntity("{ a : [ 1, 2 ] }");
+        StringBuilder builder = new StringBuilder();
+        json.writeTo(builder);
+        assertEquals("{\"a\":[1,2]}", builder.toString());
+    }
+
+    @Test
+    public void writeToOutputStreamPrettyPrinted() throws IOException {
+        JsonEntity json = new JsonEntity("{ a : \"h\u00e9llo\" }");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        json.writeTo(outputStream, true, 16);
+        assertEquals("{\n  \"a\": \"h\u00e9llo\"\n}", outputStream.toString("UTF-8"));
+    }
+
+    @Test
+    public void detachedCopy() {
+        JsonEntity original = new JsonEntity("{ a : { b : [ 1, \"two\" ] } }");
+        JsonEntity copy = original.get("a").detachedCopy();
+        assertNull(copy.parent());
+        assertEquals(original.get("a"), copy);
+        assertNotSame(original.get("a").get("b").raw(), copy.get("b").raw());
+        assertSame(original.get("a").get("b").get(1).raw(), copy.get("b").get(1).raw());
+        copy.get("b").create(3);
+        assertEquals(2, original.get("a").get("b").arraySize());
+    }
+
     @Test
     public void equals() {
         JsonEntity a = new JsonEntity("{ a : 10}");
@@ -373,18 +711,226 @@ public class JsonEntityTest {
     @SuppressWarnings("EqualsBetweenInconvertibleTypes")
     @Test
     public void equalsIncompatibleTypes() {
-        JsonElement gson = new JsonParser().parse("{a:10}");
+        JsonElement gson = JsonParser.parseString("{a:10}");
         JsonEntity easyGson = new JsonEntity(gson);
         assertFalse(easyGson.equals(gson));
     }
 
     @Test
     public void checkHashCode() {
-        JsonElement gson = new JsonParser().parse("{a:10}");
+        JsonElement gson = JsonParser.parseString("{a:10}");
         JsonEntity easyGson = new JsonEntity(gson);
         assertEquals(gson.hashCode(), easyGson.hashCode());
     }
 
+    private static final String COMPACT_JSON =
+            "{ \"name\" : \"caf\u00e9 \\\"tab\\t\\u0041\\\"\", \"ids\" : [ 1, 9007199254740993, -2.5e3 ], " +
+            "\"nested\" : { \"flag\" : true, \"nothing\" : null }, \"empty\" : [ ] }";
+
+    @Test
+    public void parseCompact() {
+        JsonEntity json = JsonEntity.parseCompact(COMPACT_JSON.getBytes(Charset.forName("UTF-8")));
+        assertEquals("caf\u00e9 \"tab\tA\"", json.asString("name"));
+        assertEquals(3, json.get("ids").arraySize());
+        assertEquals(1, json.get("ids").asInt(0));
+        assertEquals(9007199254740993L, json.get("ids").asLong(1));
+        assertEquals(-2500.0, json.get("ids").asDouble(2));
+        assertTrue(json.get("nested").asBoolean("flag"));
+        assertTrue(json.get("nested").get("nothing").isNull());
+        assertNull(json.get("missing"));
+        assertEquals(0, json.get("empty").arraySize());
+        assertEquals(JsonParser.parseString(COMPACT_JSON), json.raw());
+    }
+
+    @Test
+    public void compactNumbersKeepTheirText() throws IOException {
+        String text = "[1e5,1.50,-0,123456789012345678901234567890]";
+        JsonEntity json = JsonEntity.parseCompact(text.getBytes(Charset.forName("UTF-8")));
+        JsonElement gson = JsonParser.parseString(text);
+        assertEquals(text, json.raw().toString());
+        assertEquals(gson, json.raw());
+        assertEquals(gson.hashCode(), json.raw().hashCode());
+        StringWriter writer = new StringWriter();
+        json.writeTo(writer);
+        assertEquals(text, writer.toString());
+        assertEquals(100000, json.asInt(0));
+        assertEquals(1.5, json.asDouble(1));
+        assertEquals(new BigDecimal("123456789012345678901234567890"), json.get(3).asBigDecimal());
+    }
+
+    @Test
+    public void compactHashAndEqualityFollowGson() {
+        String text = "{\"a\":[1,2.5,\"x\",null,true],\"b\":{\"c\":{}},\"a\":[1,2.50,\"x\",null,true]}";
+        JsonEntity json = JsonEntity.parseCompact(text.getBytes(Charset.forName("UTF-8")));
+        JsonEntity gson = new JsonEntity(text);
+        assertEquals(gson.hashCode(), json.hashCode());
+        assertEquals(gson.get("a").hashCode(), json.get("a").hashCode());
+        assertTrue(json.equals(gson));
+        assertTrue(gson.equals(json));
+        assertTrue(json.equals(JsonEntity.parseCompact("{\"b\":{\"c\":{}},\"a\":[1,2.5,\"x\",null,true]}".getBytes(Charset.forName("UTF-8")))));
+        assertTrue(json.equals(JsonEntity.parseLazy(text)));
+        assertTrue(JsonEntity.parseLazy(text).equals(json));
+        assertFalse(json.equals(JsonEntity.parseCompact("{\"b\":{\"c\":{}},\"a\":[1,2.5,\"x\",null]}".getBytes(Charset.forName("UTF-8")))));
+        assertFalse(json.equals(new JsonEntity("{\"b\":{\"c\":{}},\"a\":[1,2.5,\"x\",null,true],\"d\":1}")));
+        assertFalse(json.get("b").equals(json.get("a")));
+        assertEquals(gson, json.freeze());
+    }
+
+    @Test
+    public void parseCompactFromDirectBuffer() throws IOException {
+        byte[] bytes = COMPACT_JSON.getBytes(Charset.forName("UTF-8"));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        JsonEntity json = JsonEntity.parseCompact(buffer);
+        assertEquals(0, buffer.position());
+        StringWriter writer = new StringWriter();
+        json.writeTo(writer);
+        assertEquals(new JsonEntity(COMPACT_JSON).toString(), writer.toString());
+        int count = 0;
+        for (JsonEntity id : json.get("ids").cursor()) {
+            assertEquals(json.get("ids").asDouble(count++), id.asDouble());
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void parseCompactIsReadOnly() {
+        JsonEntity json = JsonEntity.parseCompact("{ \"a\" : [ 1 ] }".getBytes(Charset.forName("UTF-8")));
+        try {
+            json.get("a").create(2);
+            fail("compact JsonEntity must be read-only");
+        } catch (JsonEntityException err) {
+            assertTrue(err.getMessage().contains("read-only"));
+        }
+        JsonEntity copy = json.detachedCopy();
+        copy.get("a").create(2);
+        assertEquals(2, copy.get("a").arraySize());
+        assertEquals(1, json.get("a").arraySize());
+    }
+
+    @Test
+    public void parseCompactRejectsInvalidJson() {
+        try {
+            JsonEntity.parseCompact("{ \"a\" : [ 1, ] }".getBytes(Charset.forName("UTF-8")));
+            fail("invalid JSON must be rejected");
+        } catch (JsonSyntaxException err) {
+            assertTrue(err.getMessage().contains("offset 13"));
+        }
+        try {
+            JsonEntity.parseCompact("[ 0, -0.5, 012 ]".getBytes(Charset.forName("UTF-8")));
+            fail("numbers with leading zeros must be rejected");
+        } catch (JsonSyntaxException err) {
+            assertTrue(err.getMessage().contains("leading zeros"));
+        }
+        try {
+            JsonEntity.parseLazy("[ -00 ]").arraySize();
+            fail("numbers with leading zeros must be rejected");
+        } catch (JsonSyntaxException err) {
+            assertTrue(err.getMessage().contains("leading zeros"));
+        }
+    }
+
+    @Test
+    public void mapFile() throws IOException {
+        File file = File.createTempFile("easygson", ".json");
+        file.deleteOnExit();
+        Files.write(file.toPath(), COMPACT_JSON.getBytes(Charset.forName("UTF-8")));
+        JsonEntity json = JsonEntity.mapFile(file.toPath());
+        assertEquals("caf\u00e9 \"tab\tA\"", json.asString("name"));
+        assertEquals(9007199254740993L, json.get("ids").asLong(1));
+        assertTrue(json.get("nested").get("nothing").isNull());
+        assertEquals(JsonParser.parseString(COMPACT_JSON), json.raw());
+    }
+
+    @Test
+    public void mapFileReportsSyntaxErrorsWhenVisited() throws IOException {
+        File file = File.createTempFile("easygson", ".json");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "{ \"good\" : [ 1, 2 ], \"bad\" : [ 1 2 ] }".getBytes(Charset.forName("UTF-8")));
+        JsonEntity json = JsonEntity.mapFile(file.toPath());
+        assertEquals(2, json.get("good").asInt(1));
+        try {
+            json.get("bad").arraySize();
+            fail("invalid JSON must be rejected when visited");
+        } catch (JsonSyntaxException err) {
+            assertTrue(err.getMessage().contains("expected ','"));
+        }
+    }
+
+    @Test
+    public void parseLazy() {
+        JsonEntity json = JsonEntity.parseLazy(COMPACT_JSON);
+        assertEquals("caf\u00e9 \"tab\tA\"", json.asString("name"));
+        assertEquals(9007199254740993L, json.get("ids").asLong(1));
+        assertTrue(json.get("nested").get("nothing").isNull());
+        assertEquals(COMPACT_JSON, json.toString());
+        assertEquals(JsonParser.parseString(COMPACT_JSON), json.raw());
+    }
+
+    @Test
+    public void parseLazyWritesUntouchedPartsVerbatim() {
+        JsonEntity json = JsonEntity.parseLazy("{ \"a\" : { \"b\" : [ 1,  2 ] }, \"c\" : { \"d\" : 1.50 } }");
+        json.get("c").create("e", true);
+        assertEquals("{\"a\":{ \"b\" : [ 1,  2 ] },\"c\":{\"d\":1.50,\"e\":true}}", json.toString());
+    }
+
+    @Test
+    public void parseLazyKeepsModificationsOfChildrenHandedOutBefore() {
+        JsonEntity json = JsonEntity.parseLazy("{ \"a\" : { \"b\" : [ 1, 2 ] }, \"c\" : 3 }");
+        JsonEntity array = json.get("a").get("b");
+        JsonEntity copy = json.detachedCopy();
+        json.remove("c");
+        array.create(3);
+        array.remove(0);
+        assertEquals("{\"a\":{\"b\":[2,3]}}", json.toString());
+        assertEquals(2, json.get("a").get("b").arraySize());
+        assertEquals("{\"a\":{\"b\":[1,2]},\"c\":3}", copy.toString());
+    }
+
+    @Test
+    public void parseLazyCopiesUntouchedSubtreesWithoutReadingThem() {
+        JsonEntity json = JsonEntity.parseLazy("{ \"a\" : { \"x\" 1 }, \"b\" : 1 }");
+        json.create("b", 2);
+        // the invalid subtree is copied as it is, since its children are never determined
+        assertEquals("{\"a\":{ \"x\" 1 },\"b\":2}", json.toString());
+    }
+
+    @Test
+    public void parseLazyKeepsUntouchedSiblingsVerbatim() throws IOException {
+        JsonEntity json = JsonEntity.parseLazy("{ \"c\" : { \"x\" : [ 1,  2 ], \"s\" : \"\\u00e9\u00e9\ud83d\ude00\" } }");
+        JsonEntity array = json.get("c").get("x");
+        json.get("c").create("e", "\u00fc\ud83d\ude00");
+        String expected = "{\"c\":{\"x\":[ 1,  2 ],\"s\":\"\\u00e9\u00e9\ud83d\ude00\",\"e\":\"\u00fc\ud83d\ude00\"}}";
+        assertEquals(expected, json.toString());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        json.writeTo(outputStream);
+        assertEquals(expected, new String(outputStream.toByteArray(), "UTF-8"));
+        json.raw();
+        array.create(3);
+        assertEquals("[1,2,3]", json.get("c").get("x").toString());
+    }
+
+    @Test
+    public void parseLazyStaysVerbatimWhenHashedComparedOrFrozen() {
+        String text = "{\"a\" :  [1,   2], \"b\" : { \"c\" : 1.50 } }";
+        JsonEntity json = JsonEntity.parseLazy(text);
+        JsonEntity gson = new JsonEntity(text);
+        assertEquals(gson.hashCode(), json.hashCode());
+        assertEquals(text, json.toString());
+        assertTrue(json.equals(gson));
+        assertTrue(gson.equals(json));
+        assertTrue(json.equals(JsonEntity.parseLazy(text)));
+        assertEquals(text, json.toString());
+        assertEquals(gson, json.freeze());
+        assertEquals(text, json.toString());
+        json.get("b").create("d", true);
+        gson.get("b").create("d", true);
+        assertEquals(gson.hashCode(), json.hashCode());
+        assertEquals(gson, json);
+        assertEquals(gson, json.freeze());
+        assertEquals("{\"a\":[1,   2],\"b\":{\"c\":1.50,\"d\":true}}", json.toString());
+    }
+
     @Test
     public void removeMe() {
         JsonEntity entity = new JsonEntity("{ a : { b : { c : 3 } } }");
@@ -425,4 +971,286 @@ public class JsonEntityTest {
         assertEquals(1, entity.get("a").get("b").get(0).asInt());
     }
 
+    @Test
+    public void freeze() {
+        JsonEntity json = new JsonEntity("{ a : [ 1, \"b\", null ], c : { d : true } }");
+        JsonEntity frozen = json.freeze();
+        json.get("a").create(2);
+        assertEquals("{\"a\":[1,\"b\",null],\"c\":{\"d\":true}}", frozen.toString());
+        assertEquals("b", frozen.get("a").asString(1));
+        assertTrue(frozen.get("c").asBoolean("d"));
+        try {
+            frozen.get("a").create(2);
+            fail("frozen JsonEntity must be immutable");
+        } catch (JsonEntityException err) {
+            assertTrue(err.getMessage().contains("is frozen"));
+        }
+        frozen.raw().getAsJsonObject().remove("a");
+        assertEquals(3, frozen.get("a").arraySize());
+        JsonEntity copy = frozen.detachedCopy();
+        copy.get("a").create(2);
+        assertEquals(4, copy.get("a").arraySize());
+    }
+
+    @Test
+    public void freezeKeepsHashCodeAndEqualsOfGson() {
+        JsonEntity json = new JsonEntity("{ a : [ 1, 2.5, \"x\", null, { b : false } ], c : {} }");
+        JsonEntity frozen = json.freeze();
+        assertEquals(json.hashCode(), frozen.hashCode());
+        assertEquals(json, frozen);
+        assertEquals(frozen, json);
+        assertEquals(frozen, new JsonEntity("{ c : {}, a : [ 1, 2.5, \"x\", null, { b : false } ] }").freeze());
+        assertFalse(frozen.equals(new JsonEntity("{ a : [ 1, 2.5, \"x\", null, { b : true } ], c : {} }").freeze()));
+        assertEquals(frozen.get("a").get(4), json.get("a").get(4).freeze());
+    }
+
+    @Test
+    public void freezeAsKeyInSet() {
+        Set<JsonEntity> keys = new HashSet<JsonEntity>();
+        keys.add(new JsonEntity("{ a : 1 }").freeze());
+        keys.add(new JsonEntity("{ a : 1 }").freeze());
+        keys.add(new JsonEntity("{ a : 2 }").freeze());
+        assertEquals(2, keys.size());
+        assertTrue(keys.contains(new JsonEntity("{ a : 2 }").freeze()));
+    }
+
+    @Test
+    public void spliteratorIsSized() {
+        JsonEntity json = emptyArray().createArray(new int[] { 1, 2, 3, 4, 5 });
+        Spliterator<JsonEntity> spliterator = json.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        Spliterator<JsonEntity> prefix = spliterator.trySplit();
+        assertEquals(2, prefix.estimateSize());
+        assertEquals(3, spliterator.estimateSize());
+        assertEquals(15, json.stream().mapToInt(JsonEntity::asInt).sum());
+        assertEquals(0, new JsonEntity("{ a : 1 }").stream().count());
+    }
+
+    @Test
+    public void parallelStream() {
+        JsonEntity json = emptyArray();
+        for (int index = 0; index < 10000; index++) {
+            json.createObject().create("value", index);
+        }
+        json.parallelStream().forEach(record -> record.create("double", record.asInt("value") * 2));
+        assertEquals(2 * 49995000L, json.stream().mapToLong(record -> record.asLong("double")).sum());
+    }
+
+    @Test
+    public void parallelMap() {
+        JsonEntity json = emptyArray();
+        for (int index = 0; index < 10000; index++) {
+            json.create(index);
+        }
+        JsonEntity mapped = json.parallelMap(value -> emptyObject().create("square", value.asLong() * value.asLong()));
+        assertEquals(10000, mapped.arraySize());
+        assertEquals(9999L * 9999L, mapped.get(9999).asLong("square"));
+        assertEquals(10000, json.arraySize());
+        JsonEntity lazy = JsonEntity.parseLazy("[ 1, 2, 3 ]").parallelMap(value -> value.asInt() == 2 ? null : value);
+        assertEquals("[1,null,3]", lazy.toString());
+    }
+
+    @Test
+    public void parallelMapCopiesResultsTakenFromTheArray() {
+        JsonEntity records = new JsonEntity("[ { id : 1, name : \" a \" }, { id : 2, name : \"b\" } ]");
+        JsonEntity same = records.parallelMap(record -> record);
+        JsonEntity names = records.parallelMap(record -> record.get("name"));
+        same.get(0).create("id", 3);
+        assertEquals(1, records.get(0).asInt("id"));
+        assertEquals("[\" a \",\"b\"]", names.toString());
+        JsonEntity trimmed = records.parallelMap(record -> emptyObject()
+                .create("id", record.asLong("id"))
+                .create("name", record.asString("name").trim()));
+        assertEquals("[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]", trimmed.toString());
+        assertEquals(" a ", records.get(0).asString("name"));
+    }
+
+    @Test
+    public void batch() {
+        JsonEntity json = new JsonEntity("{ a : [ 0, 1, 2, 3, 4 ] }");
+        JsonEntity array = json.get("a").batch(batch -> batch
+                .remove(0)
+                .set(2, "two")
+                .insert(2, "before two")
+                .insert(5, true)
+                .remove(4)
+                .append(emptyObject()));
+        assertEquals("[1,\"before two\",\"two\",3,true,{}]", array.toString());
+        assertEquals("{\"a\":[1,\"before two\",\"two\",3,true,{}]}", json.toString());
+    }
+
+    @Test
+    public void batchIsAppliedOnlyIfComplete() {
+        JsonEntity json = new JsonEntity("[ 0, 1, 2 ]");
+        try {
+            json.batch(batch -> batch.remove(0).set(3, 3));
+            fail("index 3 does not exist");
+        } catch (JsonEntityException err) {
+            assertTrue(err.getMessage().contains("index out of bounds"));
+        }
+        assertEquals("[0,1,2]", json.toString());
+    }
+
+    @Test
+    public void batchOnLazyArrayKeepsUntouchedElementsVerbatim() {
+        JsonEntity json = JsonEntity.parseLazy("{\"a\":[{\"b\":\"\\u00e9\"},1,2],\"c\":3}");
+        json.get("a").batch(batch -> batch.remove(1).insert(0, 0));
+        assertEquals("{\"a\":[0,{\"b\":\"\\u00e9\"},2],\"c\":3}", json.toString());
+    }
+
+    @Test
+    public void removeIfOnArray() {
+        JsonEntity json = new JsonEntity("{ a : [ 1, 2, 3, 4, 5, 6 ] }");
+        json.get("a").removeIf(value -> value.asInt() % 2 == 0);
+        assertEquals("{\"a\":[1,3,5]}", json.toString());
+        json.get("a").retainIf(value -> value.asInt() > 1);
+        assertEquals("{\"a\":[3,5]}", json.toString());
+    }
+
+    @Test
+    public void removeIfOnObject() {
+        JsonEntity json = new JsonEntity("{ a : 1, b : 2, c : { d : 3 } }");
+        json.removeIf(child -> child.name().equals("a") || child.isObject());
+        assertEquals("{\"b\":2}", json.toString());
+        JsonEntity lazy = JsonEntity.parseLazy("{\"a\":1,\"b\":\"\\u00e9\",\"c\":3}");
+        lazy.retainIf(child -> !child.name().equals("c"));
+        assertEquals("{\"a\":1,\"b\":\"\\u00e9\"}", lazy.toString());
+    }
+
+    @Test
+    public void filter() {
+        JsonEntity json = new JsonEntity("{ a : [ { b : 1 }, { b : 2 } ], c : true }");
+        JsonEntity filtered = json.get("a").filter(value -> value.asInt("b") > 1);
+        filtered.get(0).create("b", 3);
+        assertEquals("[{\"b\":3}]", filtered.toString());
+        assertEquals("{\"a\":[{\"b\":1},{\"b\":2}],\"c\":true}", json.toString());
+        assertEquals("{\"c\":true}", json.filter(JsonEntity::isPrimitive).toString());
+        try {
+            json.get("c").filter(JsonEntity::isPrimitive);
+            fail("a primitive has no children");
+        } catch (JsonEntityException err) {
+            assertTrue(err.getMessage().contains("is not an array or object"));
+        }
+    }
+
+    @Test
+    public void insert() {
+        JsonEntity json = new JsonEntity("{ a : [ 1, 2 ] }");
+        json.get("a").insert(0, 0).insert(3, 3).insert(1, "x");
+        assertEquals("{\"a\":[0,\"x\",1,2,3]}", json.toString());
+        JsonEntity inserted = json.get("a").insert(2, emptyObject());
+        inserted.create("b", true);
+        assertEquals("[0,\"x\",{\"b\":true},1,2,3]", json.get("a").toString());
+    }
+
+    @Test
+    public void splice() {
+        JsonEntity json = new JsonEntity("[ 0, 1, 2, 3, 4 ]");
+        JsonEntity removed = json.splice(1, 3, new JsonEntity("\"a\""));
+        assertEquals("[1,2,3]", removed.toString());
+        assertEquals("[0,\"a\",4]", json.toString());
+        json.splice(1, 0, new JsonEntity("\"b\""), new JsonEntity("\"c\""));
+        assertEquals("[0,\"b\",\"c\",\"a\",4]", json.toString());
+        json.splice(3, 2);
+        assertEquals("[0,\"b\",\"c\"]", json.toString());
+        try {
+            json.splice(2, 2);
+            fail("range does not fit in the array");
+        } catch (JsonEntityException err) {
+            assertTrue(err.getMessage().contains("index out of bounds"));
+        }
+    }
+
+    @Test
+    public void move() {
+        JsonEntity json = new JsonEntity("[ 0, 1, 2, 3, 4 ]");
+        assertEquals("[1,2,3,0,4]", json.move(0, 3).toString());
+        assertEquals("[4,1,2,3,0]", json.move(4, 0).toString());
+        assertEquals("[4,1,2,3,0]", json.move(2, 2).toString());
+    }
+
+    @Test
+    public void slice() {
+        JsonEntity json = new JsonEntity("[ { a : 0 }, 1, 2, 3 ]");
+        JsonEntity slice = json.slice(0, 2);
+        slice.get(0).create("a", 5);
+        assertEquals("[{\"a\":5},1]", slice.toString());
+        assertEquals("[{\"a\":0},1,2,3]", json.toString());
+        assertEquals("[]", json.slice(4, 4).toString());
+    }
+
+    @Test
+    public void scopeReusesEntities() {
+        JsonEntity json = new JsonEntity("{ a : { b : [ 1, 2 ] }, c : \"d\" }");
+        JsonEntity first;
+        try (EntityScope scope = JsonEntity.scope()) {
+            first = json.get("a");
+            assertEquals(2, first.get("b").asInt(1));
+            assertEquals("d", json.asString("c"));
+            first.get("b").create(3);
+        }
+        try (EntityScope scope = JsonEntity.scope()) {
+            JsonEntity second = json.get("a");
+            assertSame(first, second);
+            assertEquals("[1,2,3]", second.get("b").toString());
+        }
+        assertNotSame(json.get("a"), json.get("a"));
+        assertEquals("{\"a\":{\"b\":[1,2,3]},\"c\":\"d\"}", json.toString());
+    }
+
+    @Test
+    public void copiesOutliveScope() {
+        JsonEntity json = new JsonEntity("{ n : \"hello\", o : { p : \"q\" }, x : \"x\" }");
+        JsonEntity primitive;
+        JsonEntity object;
+        try (EntityScope scope = JsonEntity.scope()) {
+            primitive = json.get("n").detachedCopy();
+            object = json.get("o").detachedCopy();
+        }
+        assertEquals("\"hello\"", primitive.toString());
+        assertEquals("{\"p\":\"q\"}", object.toString());
+        try (EntityScope scope = JsonEntity.scope()) {
+            assertEquals("x", json.get("x").asString());
+            assertEquals("q", json.get("o").asString("p"));
+        }
+        assertEquals("hello", primitive.asString());
+        assertEquals("q", object.asString("p"));
+    }
+
+    @Test
+    public void nestedScopesMustBeClosedInReverseOrder() {
+        JsonEntity json = new JsonEntity("[ { a : 1 }, { a : 2 } ]");
+        EntityScope outer = JsonEntity.scope();
+        JsonEntity first = json.get(0);
+        EntityScope inner = JsonEntity.scope();
+        JsonEntity second = json.get(1);
+        try {
+            outer.close();
+            fail("inner scope is still open");
+        } catch (IllegalStateException err) {
+            assertTrue(err.getMessage().contains("reverse order"));
+        }
+        inner.close();
+        assertSame(second, json.get(1));
+        assertEquals(2, second.asInt("a"));
+        assertEquals(1, first.asInt("a"));
+        outer.close();
+        outer.close();
+    }
+
+    @Test
+    public void commonPrimitivesAreShared() {
+        JsonEntity first = emptyArray().create(true).create(1).create("").create(1024).create(5L);
+        JsonEntity second = emptyArray().create(true).create(1).create("").create(1024).create(5L);
+        assertSame(first.raw().getAsJsonArray().get(0), second.raw().getAsJsonArray().get(0));
+        assertSame(first.raw().getAsJsonArray().get(1), second.raw().getAsJsonArray().get(1));
+        assertSame(first.raw().getAsJsonArray().get(2), second.raw().getAsJsonArray().get(2));
+        assertNotSame(first.raw().getAsJsonArray().get(3), second.raw().getAsJsonArray().get(3));
+        assertTrue(first.raw().getAsJsonArray().get(4).getAsNumber() instanceof Long);
+        assertEquals("[true,1,\"\",1024,5]", first.toString());
+        assertSame(WrappedPrimitive.FALSE, WrapFactory.wrap(new JsonPrimitive(false)));
+        assertSame(WrappedPrimitive.valueOf(-128), WrapFactory.wrap(new JsonPrimitive(-128)));
+        assertEquals(-129, new JsonEntity(new JsonPrimitive(-129)).asInt());
+    }
+
 }
@@ -0,0 +1,115 @@
+package org.easygson;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+public class JsonPathTest {
+
+    private final JsonEntity json = new JsonEntity(
+            "{ a : { b : [ { c : \"zero\" }, { c : \"one\" }, { c : \"two\" }, { c : \"three\", d : 3.5 } ] }, " +
+            "flag : true, 'odd name' : 42 }");
+
+    @Test
+    public void readString() {
+        assertEquals("three", JsonPath.compile("$.a.b[3].c").readString(json));
+    }
+
+    @Test
+    public void readTypedPrimitives() {
+        assertEquals(3.5, JsonPath.compile("$.a.b[3].d").readDouble(json));
+        assertTrue(JsonPath.compile("$.flag").readBoolean(json));
+        assertEquals(42, JsonPath.compile("$['odd name']").readInt(json));
+        assertEquals(42L, JsonPath.compile("$['odd name']").readLong(json));
+    }
+
+    @Test
+    public void readEntity() {
+        JsonEntity element = JsonPath.compile("$.a.b[1]").read(json);
+        assertEquals("one", element.asString("c"));
+        assertNull(JsonPath.compile("$.a.x").read(json));
+        assertNull(JsonPath.compile("$.a.b[9].c").read(json));
+    }
+
+    @Test
+    public void wildcard() {
+        List<JsonEntity> values = JsonPath.compile("$.a.b[*].c").readAll(json);
+        assertEquals(4, values.size());
+        assertEquals("zero", values.get(0).asString());
+        assertEquals("three", values.get(3).asString());
+        assertFalse(JsonPath.compile("$.a.b[*].c").isDefinite());
+    }
+
+    @Test
+    public void slice() {
+        List<JsonEntity> values = JsonPath.compile("$.a.b[1:3].c").readAll(json);
+        assertEquals(2, values.size());
+        assertEquals("one", values.get(0).asString());
+        assertEquals("two", values.get(1).asString());
+        assertEquals(2, JsonPath.compile("$.a.b[2:].c").readAll(json).size());
+    }
+
+    @Test
+    public void firstMatchOfIndefinitePath() {
+        assertEquals(3.5, JsonPath.compile("$.a.b[*].d").read(json).asDouble());
+    }
+
+    @Test(expected = JsonEntityException.class)
+    public void readMissingPrimitive() {
+        JsonPath.compile("$.a.missing").readString(json);
+    }
+
+    @Test(expected = JsonEntityException.class)
+    public void readNonPrimitive() {
+        JsonPath.compile("$.a").readString(json);
+    }
+
+    @Test
+    public void mappedFileIsNavigatedInPlace() throws IOException {
+        File file = File.createTempFile("easygson", ".json");
+        file.deleteOnExit();
+        Files.write(file.toPath(), ("{ \"a\" : { \"b\" : [ { \"c\" : \"zero\" }, { \"c\" : \"one\", \"d\" : 3.5 } ] }, " +
+                "\"bad\" : [ 1 2 ] }").getBytes(Charset.forName("UTF-8")));
+        JsonEntity mapped = JsonEntity.mapFile(file.toPath());
+        // the invalid array is never visited, which it would be if the file were turned into a Gson tree
+        assertEquals("one", JsonPath.compile("$.a.b[1].c").readString(mapped));
+        assertEquals(3.5, JsonPath.compile("$.a.b[*].d").readDouble(mapped));
+        assertEquals("zero", JsonPath.compile("$.a.b[0]").read(mapped).asString("c"));
+        List<JsonEntity> values = JsonPath.compile("$.a.b[*].c").readAll(mapped);
+        assertEquals(2, values.size());
+        assertEquals("zero", values.get(0).asString());
+        assertNull(JsonPath.compile("$.a.b[2].c").read(mapped));
+    }
+
+    @Test
+    public void lazyDocumentStaysVerbatim() {
+        String text = "{ \"a\" : { \"b\" : [ 1,  2 ] } }";
+        JsonEntity lazy = JsonEntity.parseLazy(text);
+        assertEquals(2, JsonPath.compile("$.a.b[1]").readInt(lazy));
+        assertEquals(2, JsonPath.compile("$.a.b[*]").readAll(lazy).size());
+        assertEquals(text, lazy.toString());
+    }
+
+    @Test
+    public void negativeIndexIsRejected() {
+        assertRejected("$.a[-1]", "invalid path '$.a[-1]' at position 3, negative index -1 is not supported");
+        assertRejected("$.a.b[-2:]", "invalid path '$.a.b[-2:]' at position 5, negative index -2 is not supported");
+        assertRejected("$.a.b[0:-1]", "invalid path '$.a.b[0:-1]' at position 5, negative index -1 is not supported");
+    }
+
+    private void assertRejected(String path, String message) {
+        try {
+            JsonPath.compile(path);
+            fail("path '"+path+"' should have been rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.easygson;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+public class JsonStreamTest {
+
+    private static List<JsonEntity> collect(String json, String path) throws IOException {
+        final List<JsonEntity> entities = new ArrayList<JsonEntity>();
+        JsonStream.forEach(new StringReader(json), path, new JsonEntityHandler() {
+            @Override
+            public void handle(JsonEntity jsonEntity) {
+                entities.add(jsonEntity);
+            }
+        });
+        return entities;
+    }
+
+    @Test
+    public void arrayElements() throws IOException {
+        List<JsonEntity> records = collect(
+                "{ meta : { count : 2 }, records : [ { id : 1 }, { id : 2 } ], trailer : true }", "$.records[*]");
+        assertEquals(2, records.size());
+        assertEquals(1, records.get(0).asInt("id"));
+        assertEquals(2, records.get(1).asInt("id"));
+    }
+
+    @Test
+    public void nestedWildcards() throws IOException {
+        List<JsonEntity> ids = collect(
+                "{ pages : [ { records : [ { id : 1 } ] }, { records : [ { id : 2 }, { id : 3 } ] } ] }",
+                "$.pages[*].records[*].id");
+        assertEquals(3, ids.size());
+        assertEquals(3, ids.get(2).asInt());
+    }
+
+    @Test
+    public void arrayIndex() throws IOException {
+        List<JsonEntity> records = collect("[ \"alpha\", \"beta\", \"gamma\" ]", "$[1]");
+        assertEquals(1, records.size());
+        assertEquals("beta", records.get(0).asString());
+    }
+
+    @Test
+    public void jsonLines() throws IOException {
+        List<JsonEntity> names = collect("{ \"name\" : \"a\" }\n{ \"name\" : \"b\" }\n", "$.name");
+        assertEquals(2, names.size());
+        assertEquals("a", names.get(0).asString());
+        assertEquals("b", names.get(1).asString());
+    }
+
+    @Test
+    public void pathDoesNotMatch() throws IOException {
+        assertTrue(collect("{ records : { id : 1 } }", "$.records[*].name").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPath() {
+        new JsonStream("$.records[");
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.easygson;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.*;
+
+public class PersistentJsonEntityTest {
+
+    private final PersistentJsonEntity original = new JsonEntity(
+            "{ settings : { colors : [ \"red\", \"green\" ], size : 10 }, users : { a : { name : \"A\" } } }")
+            .persistentCopy();
+
+    @Test
+    public void createLeavesPreviousVersionUntouched() {
+        PersistentJsonEntity next = original.create("$.settings.size", 12);
+        assertEquals(10, original.toJsonEntity().get("settings").asInt("size"));
+        assertEquals(12, next.toJsonEntity().get("settings").asInt("size"));
+    }
+
+    @Test
+    public void untouchedSubtreesAreShared() {
+        PersistentJsonEntity next = original.create("$.settings.colors[1]", "blue");
+        assertSame(original.get("$.users").raw(), next.get("$.users").raw());
+        assertNotSame(original.get("$.settings").raw(), next.get("$.settings").raw());
+        assertEquals("blue", next.get("$.settings.colors[1]").raw().getAsString());
+    }
+
+    @Test
+    public void appendToArray() {
+        PersistentJsonEntity next = original.create("$.settings.colors[2]", "blue");
+        assertEquals(2, original.get("$.settings.colors").raw().getAsJsonArray().size());
+        assertEquals(3, next.get("$.settings.colors").raw().getAsJsonArray().size());
+    }
+
+    @Test
+    public void createMissingObjects() {
+        PersistentJsonEntity next = original.create("$.users.b.name", "B");
+        assertNull(original.get("$.users.b"));
+        assertEquals("B", next.toJsonEntity().get("users").get("b").asString("name"));
+    }
+
+    @Test
+    public void remove() {
+        PersistentJsonEntity next = original.remove("$.settings.colors[0]");
+        JsonEntity colors = next.toJsonEntity().get("settings").get("colors");
+        assertEquals(1, colors.arraySize());
+        assertEquals("green", colors.asString(0));
+    }
+
+    @Test
+    public void removeMissingReturnsSameVersion() {
+        assertSame(original, original.remove("$.users.b"));
+    }
+
+    @Test
+    public void nullify() {
+        PersistentJsonEntity next = original.nullify("$.users.a");
+        assertTrue(next.toJsonEntity().get("users").get("a").isNull());
+        assertFalse(original.toJsonEntity().get("users").get("a").isNull());
+    }
+
+    @Test
+    public void snapshotIsDetached() {
+        JsonEntity json = emptyObjectWithValue();
+        PersistentJsonEntity version = json.persistentCopy();
+        json.create("x", 2);
+        assertEquals(1, version.toJsonEntity().asInt("x"));
+    }
+
+    @Test
+    public void equalVersions() {
+        assertEquals(original.create("$.settings.size", 12), original.create("$.settings.size", 12));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexOutOfBounds() {
+        original.create("$.settings.colors[5]", "blue");
+    }
+
+    private static JsonEntity emptyObjectWithValue() {
+        return JsonEntity.emptyObject().create("x", 1);
+    }
+
+}